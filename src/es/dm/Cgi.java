@@ -488,22 +488,8 @@ public class Cgi {
       this.level = level;
     }
 
-    Js toJs() {
-      return Js.write(new ArrayList<Js>() {{
-        add(Js.write(id));
-        add(Js.write(key));
-        add(Js.write(level));
-      }});
-    }
-
-    static User ofJs (Js js) {
-      ArrayList<Js> a = js.rArray();
-      return new User(
-        a.get(0).rString(),
-        a.get(1).rString(),
-        a.get(2).rString()
-      );
-    }
+    static final JsCodec<User> CODEC =
+      JsCodec.ofArray(User.class, "id", "key", "level");
   }
 
   static String usersPath () {
@@ -511,18 +497,11 @@ public class Cgi {
   }
 
   static void writeUsers(List<User> us) {
-    Js js = Js.write(
-      us.stream().map(u -> u.toJs()).collect(Collectors.toList())
-    );
-    write(usersPath(), js.toString());
+    write(usersPath(), User.CODEC.writeList(us).toString());
   }
 
   static List<User> readUsers () {
-    return new Js(read(usersPath())).rArray()
-      .stream()
-      .map(ujs -> User.ofJs(ujs))
-      .collect(Collectors.toList())
-    ;
+    return User.CODEC.readList(new Js(read(usersPath())));
   }
 
   static void putUser(User u) {
@@ -562,28 +541,9 @@ public class Cgi {
       this.lapse = lapse;
     }
 
-    Js toJs() {
-      return Js.write(new ArrayList<Js>() {{
-        add(Js.write(id));
-        add(Js.write(key));
-        add(Js.write(user));
-        add(Js.write(connectionId));
-        add(Js.write(expire));
-        add(Js.write(lapse));
-      }});
-    }
-
-    static Session ofJs (Js js) {
-      ArrayList<Js> a = js.rArray();
-      return new Session(
-        a.get(0).rString(),
-        a.get(1).rString(),
-        a.get(2).rString(),
-        a.get(3).rString(),
-        (long)a.get(4).rDouble(),
-        (long)a.get(5).rDouble()
-      );
-    }
+    static final JsCodec<Session> CODEC = JsCodec.ofArray(
+      Session.class, "id", "key", "user", "connectionId", "expire", "lapse"
+    );
   }
 
   static String sessionsPath () {
@@ -591,18 +551,11 @@ public class Cgi {
   }
 
   static void writeSessions(List<Session> ss) {
-    Js js = Js.write(
-      ss.stream().map(s -> s.toJs()).collect(Collectors.toList())
-    );
-    write(sessionsPath(), js.toString());
+    write(sessionsPath(), Session.CODEC.writeList(ss).toString());
   }
 
   static List<Session> readSessions () {
-    return new Js(read(sessionsPath())).rArray()
-      .stream()
-      .map(ujs -> Session.ofJs(ujs))
-      .collect(Collectors.toList())
-    ;
+    return Session.CODEC.readList(new Js(read(sessionsPath())));
   }
 
   static void putSession(Session s) {
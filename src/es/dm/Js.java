@@ -3,36 +3,173 @@
 
 package es.dm;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
-
-/** Json encoder and decoder */
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Json encoder and decoder.<p>
+ * Js values are immutable. Reading functions do not modify them, so the
+ * same Js can be read from several threads at the same time.
+ */
 public class Js {
-  String tx = "";
-  int ix = 0;
-  int len = 0;
+  // Source text. 'js' is the segment [start, end) of it. It is a String or
+  // an Utf8.
+  final CharSequence tx;
+  final int start;
+  final int end;
+  // Value already decoded by the parser of its container. It is an
+  // ArrayList<Js>, a HashMap<String, Js>, a JsObject or null if it has not
+  // been decoded.
+  final Object value;
+  // Structural index of 'tx' or null.
+  final JsIndex idx;
+  // Values decoded by reading functions or null if they are not kept (see
+  // 'cached').
+  final Memo memo;
+  // Reading position. It is only used in cursors (see 'cursor').
+  int ix;
+  // Structural hash or 0 if it has not been computed yet (see 'hashCode').
+  // 'hashIsZero' is set if the hash computed is 0. As in String, threads
+  // which read them before they are set compute it again.
+  int hash;
+  boolean hashIsZero;
+
+  // Value decoded by a reading function. It is released by the garbage
+  // collector when memory is needed.
+  static final class Memo {
+    volatile SoftReference<Object> ref = null;
+  }
 
   /**
    * @param tx It must be a valid JSON string.
    */
   public Js(String tx) {
+    this(tx, 0, tx.length());
+  }
+
+  /**
+   * Reads a JSON text codified in UTF-8 without decoding it. Only strings
+   * which are read are decoded.
+   * @param bs It must be a valid JSON text.
+   */
+  public Js(byte[] bs) {
+    this(ByteBuffer.wrap(bs));
+  }
+
+  /**
+   * Reads a JSON text codified in UTF-8 without decoding it. Only strings
+   * which are read are decoded.<p>
+   * The text goes from the current position to the limit of 'bs'. 'bs' is
+   * not modified, but its content must not change while this Js is used.
+   * @param bs It must be a valid JSON text.
+   */
+  public Js(ByteBuffer bs) {
+    this(new Utf8(bs.slice()), 0, bs.remaining());
+  }
+
+  /**
+   * Maps 'path' in memory and reads it as a JSON text codified in UTF-8.<p>
+   * The text is not copied to the heap and only the parts of the file which
+   * are read are loaded by the operating system. The file must not be
+   * modified while the returned Js is used.
+   * @param path File path. Its size must be less than 2 GB.
+   * @return A Js over the file.
+   * @throws IOException If 'path' can not be mapped.
+   */
+  public static Js ofFile (String path) throws IOException {
+    try (FileChannel ch = FileChannel.open(
+      Paths.get(path), StandardOpenOption.READ
+    )) {
+      long size = ch.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too big to be mapped (" + size + ")");
+      }
+      return new Js(ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+  }
+
+  // Makes a view of the segment [start, end) of 'tx' without copying it.
+  // While the view is alive it keeps 'tx' alive too.
+  Js(CharSequence tx, int start, int end) {
+    this(tx, start, end, null, null);
+  }
+
+  Js(CharSequence tx, int start, int end, Object value, JsIndex idx) {
+    this(tx, start, end, value, idx, null);
+  }
+
+  Js(
+    CharSequence tx, int start, int end, Object value, JsIndex idx, Memo memo
+  ) {
     this.tx = tx;
-    len = tx.length();
+    this.start = start;
+    this.end = end;
+    this.value = value;
+    this.idx = idx;
+    this.memo = memo;
+    ix = start;
   }
 
-  void exc(String msg) {
-    int ix = this.ix;
-    this.ix = 0;
+  // Makes a view of the segment [start, end) of 'tx' with the index of this.
+  // If this keeps its decoded values, the view keeps its own ones too.
+  Js view (int start, int end) {
+    return new Js(
+      tx, start, end, null, idx, memo == null ? null : new Memo()
+    );
+  }
+
+  // Makes a view of the segment [start, end) of 'tx' with the index of this
+  // and its decoded value.
+  Js view (int start, int end, Object value) {
+    return new Js(tx, start, end, value, idx);
+  }
+
+  // Returns a copy of this to be read. Reading functions move the position
+  // of a cursor, never the one of 'js', so that 'js' can be shared between
+  // threads.
+  Js cursor () {
+    return new Js(tx, start, end, value, idx, memo);
+  }
+
+  // Returns the value decoded by the parser of the container of 'js' or
+  // kept by a previous reading, or null if there is no one.
+  Object decoded () {
+    if (value != null || memo == null) {
+      return value;
+    }
+    SoftReference<Object> r = memo.ref;
+    return r == null ? null : r.get();
+  }
 
+  // Keeps 'v' as decoded value if this was made by 'cached'.
+  void keep (Object v) {
+    if (memo != null) {
+      memo.ref = new SoftReference<>(v);
+    }
+  }
+
+  void exc(String msg) {
     int rest = tx.length() - ix;
     throw new IllegalArgumentException(
       msg + "\n" +
-      (ix < 30 ? tx.substring(0, ix) : "..." + tx.substring(ix - 30, ix)) +
+      (ix < 30 ? str(0, ix) : "..." + str(ix - 30, ix)) +
       "_|_" +
-      (rest < 30 ? tx.substring(ix) : tx.substring(ix, ix + 30) + "...")
+      (rest < 30 ? str(ix, ix + rest) : str(ix, ix + 30) + "...")
     );
   }
 
@@ -40,19 +177,44 @@ public class Js {
     exc("Spare characters reading a " + value + " value");
   }
 
+  // Returns the text of the segment [start, end) of 'tx'.
+  String str (int start, int end) {
+    return tx instanceof Utf8
+      ? ((Utf8)tx).str(start, end)
+      : tx.subSequence(start, end).toString()
+    ;
+  }
+
+  // Appends the text of the segment [start, end) of 'tx' to 'sb'.
+  void append (StringBuilder sb, int start, int end) {
+    if (tx instanceof Utf8) {
+      ((Utf8)tx).append(sb, start, end);
+    } else {
+      sb.append(tx, start, end);
+    }
+  }
+
   boolean starts (String s) {
-    return tx.substring(ix).startsWith(s);
+    if (ix + s.length() > end) {
+      return false;
+    }
+    for (int i = 0; i < s.length(); ++i) {
+      if (tx.charAt(ix + i) != s.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   void blanks () {
-    while (ix < len && tx.charAt(ix) <= ' ') {
+    while (ix < end && tx.charAt(ix) <= ' ') {
       ++ix;
     }
   }
 
   char rnext () {
     ++ix;
-    if (ix < len) {
+    if (ix < end) {
       return tx.charAt(ix);
     }
     return '\0';
@@ -60,12 +222,12 @@ public class Js {
 
   boolean rend () {
     blanks();
-    return ix == len;
+    return ix == end;
   }
 
-  // tx[ix] results as ',', ']', '}' or ix = len
+  // tx[ix] results as ',', ']', '}' or ix = end
   void skipValue () {
-    if (ix < len) {
+    if (ix < end) {
       char ch = tx.charAt(ix);
       while (ch != ',' && ch != ']' && ch != '}' && ch != '\0')
         ch = rnext();
@@ -77,6 +239,9 @@ public class Js {
     char ch;
     for (;;) {
       ch = rnext();
+      if (ix >= end) {
+        exc("Unexpected end of string");
+      }
       if (ch == '"') {
         ++ix;
         blanks();
@@ -98,7 +263,7 @@ public class Js {
   void skipArray () {
     ++ix;
     blanks();
-    if (ix == len) {
+    if (ix == end) {
       exc("Expected ']' skiping array");
     }
 
@@ -120,7 +285,7 @@ public class Js {
         skipValue();
       }
 
-      if (ix == len) {
+      if (ix == end) {
         exc("Expected ']' skiping array");
       }
       ch = tx.charAt(ix);
@@ -128,7 +293,7 @@ public class Js {
       if (ch == ',') {
         ++ix;
         blanks();
-        if (ix == len) {
+        if (ix == end) {
           exc("Expected ']' skiping array");
         }
         ch = tx.charAt(ix);
@@ -148,7 +313,7 @@ public class Js {
   void skipObject () {
     ++ix;
     blanks();
-    if (ix == len) {
+    if (ix == end) {
       exc("Expected '}' skiping object");
     }
 
@@ -165,7 +330,7 @@ public class Js {
       }
       skipString();
 
-      if (ix == len) {
+      if (ix == end) {
         exc("Expected ':' skiping object");
       }
       ch = tx.charAt(ix);
@@ -175,7 +340,7 @@ public class Js {
       ++ix;
       blanks();
 
-      if (ix == len) {
+      if (ix == end) {
         exc("Expected '}' skiping object");
       }
       ch = tx.charAt(ix);
@@ -183,18 +348,20 @@ public class Js {
         skipString();
       } else if (ch == '[') {
         skipArray();
+      } else if (ch == '{') {
+        skipObject();
       } else {
         skipValue();
       }
 
-      if (ix == len) {
+      if (ix == end) {
         exc("Expected '}' skiping object");
       }
       ch = tx.charAt(ix);
       if (ch == ',') {
         ++ix;
         blanks();
-        if (ix == len) {
+        if (ix == end) {
           exc("Expected '}' skiping object");
         }
         ch = tx.charAt(ix);
@@ -210,19 +377,159 @@ public class Js {
     }
   }
 
+  // Starts at the first character of a value and end after it + BLANKS
+  void skip () {
+    char ch = tx.charAt(ix);
+    if (idx != null && (ch == '"' || ch == '[' || ch == '{')) {
+      int close = idx.close(ix);
+      if (close != -1) {
+        ix = close + 1;
+        blanks();
+        return;
+      }
+    }
+    if (ch == '"') {
+      skipString();
+    } else if (ch == '[') {
+      skipArray();
+    } else if (ch == '{') {
+      skipObject();
+    } else {
+      skipValue();
+    }
+  }
+
+  // Starts at '[' or '{' and ends at the first element of the container or
+  // after its end + BLANKS. Returns false if the container is empty.
+  boolean rFirst (char close) {
+    ++ix;
+    blanks();
+    if (ix == end) {
+      exc(close == ']' ? "Unexpected end of array" : "Unexpected end of object");
+    }
+    if (tx.charAt(ix) == close) {
+      ++ix;
+      blanks();
+      return false;
+    }
+    return true;
+  }
+
+  // Starts after an element + BLANKS and ends at the first character of the
+  // next one or after the end of the container + BLANKS. Returns false if
+  // the container has not more elements.
+  boolean rNext (char close) {
+    if (ix == end) {
+      exc(close == ']' ? "Unexpected end of array" : "Unexpected end of object");
+    }
+    char ch = tx.charAt(ix);
+    if (ch == close) {
+      ++ix;
+      blanks();
+      return false;
+    }
+    if (ch != ',') {
+      exc("Expected ','");
+    }
+    ++ix;
+    blanks();
+    if (ix == end) {
+      exc(close == ']' ? "Unexpected end of array" : "Unexpected end of object");
+    }
+    return true;
+  }
+
+  // Starts at '"' of an object key and ends at the first character of its
+  // value. Returns true if 'key' is null or the key read is equals to it.
+  // The key is only decoded if it has escapes or non ASCII bytes.
+  boolean rKey (String key) {
+    if (tx.charAt(ix) != '"') {
+      exc("Expected '\"'");
+    }
+    boolean r = true;
+    if (key == null) {
+      rStringValue(null);
+    } else {
+      int begin = ix;
+      int i = ix + 1;
+      int j = 0;
+      int n = key.length();
+      for (;;) {
+        if (i == end) {
+          rStringValue(null);
+        }
+        char ch = tx.charAt(i);
+        if (ch == '"') {
+          r = j == n;
+          ix = i + 1;
+          break;
+        }
+        if (ch == '\\' || (ch > 127 && tx instanceof Utf8)) {
+          ix = begin;
+          r = rStringValue().equals(key);
+          break;
+        }
+        if (j == n || ch != key.charAt(j)) {
+          ix = i - 1;
+          rStringValue(null);
+          r = false;
+          break;
+        }
+        ++i;
+        ++j;
+      }
+    }
+
+    rColon();
+    return r;
+  }
+
+  // Starts at '"' of an object key. If the key is 'key' without escapes,
+  // returns the position after its closing '"'. Otherwise returns -1.
+  int rawKeyEnd (String key) {
+    int n = key.length();
+    int i = ix + 1;
+    if (i + n >= end || tx.charAt(i + n) != '"') {
+      return -1;
+    }
+    boolean utf8 = tx instanceof Utf8;
+    for (int j = 0; j < n; ++j) {
+      char ch = tx.charAt(i + j);
+      if (ch != key.charAt(j) || ch == '\\' || (ch > 127 && utf8)) {
+        return -1;
+      }
+    }
+    return i + n + 1;
+  }
+
+  // Starts after an object key and ends at the first character of its value.
+  void rColon () {
+    blanks();
+    if (ix == end) {
+      exc("Unexpected end of object key");
+    }
+    if (tx.charAt(ix) != ':') {
+      exc("Expected ':'");
+    }
+    ++ix;
+    blanks();
+    if (ix == end) {
+      exc("Expected an object value");
+    }
+  }
+
   /**
    * Reads a null value.
    * @return true if js is equals to "null"
    */
   public boolean isNull () {
-    blanks();
+    Js js = cursor();
+    js.blanks();
     boolean r = false;
-    if (starts("null")) {
-      ix += 4;
-      r = rend();
+    if (js.starts("null")) {
+      js.ix += 4;
+      r = js.rend();
     }
-
-    ix = 0;
     return r;
   }
 
@@ -231,31 +538,27 @@ public class Js {
    * @return The boolean value of 'js'
    */
   public boolean rBoolean () {
-    blanks();
+    Js js = cursor();
+    js.blanks();
     boolean r = true;
-    if (starts("true")) {
-      ix += 4;
-    } else if (starts("false")) {
-      ix += 5;
+    if (js.starts("true")) {
+      js.ix += 4;
+    } else if (js.starts("false")) {
+      js.ix += 5;
       r = false;
     } else {
-      exc("Expected true or false");
+      js.exc("Expected true or false");
     }
-    if (!rend()) {
-      excSpare("boolean");
+    if (!js.rend()) {
+      js.excSpare("boolean");
     }
-    ix = 0;
     return r;
   }
 
-  String rNumber () {
-    blanks();
-    if (ix == len) {
-      exc("Expected a double value");
-    }
-    int start = ix;
+  // Starts at the first character of a number and ends after it.
+  void skipNumber () {
     char ch = tx.charAt(ix);
-    if (tx.charAt(ix) == '-') {
+    if (ch == '-') {
       ch = rnext();
     }
     if (ch == '0') {
@@ -295,15 +598,26 @@ public class Js {
         exc("Expected a digit");
       }
     }
+  }
 
-    int end = ix;
-    if (!rend()) {
-      excSpare("double");
+  // Reads a number without making temporary Strings.
+  JsNum rNumber () {
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end) {
+      js.exc("Expected a double value");
     }
-
-    ix = 0;
-
-    return tx.substring(start, end);
+    JsNum n = new JsNum();
+    int r = n.read(tx, js.ix, end);
+    if (r < 0) {
+      js.ix = -1 - r;
+      js.exc("Expected a digit");
+    }
+    js.ix = r;
+    if (!js.rend()) {
+      js.excSpare("double");
+    }
+    return n;
   }
 
   /**
@@ -311,15 +625,27 @@ public class Js {
    * @return The int (number) value of 'js'
    */
   public int rInteger () {
-    return Integer.parseInt(rNumber());
+    JsNum n = rNumber();
+    if (!n.isLong()) {
+      exc("Expected an int value");
+    }
+    long r = n.toLong();
+    if (r < Integer.MIN_VALUE || r > Integer.MAX_VALUE) {
+      exc("Expected an int value");
+    }
+    return (int)r;
   }
 
   /**
-   * Reads a long value.
+   * Reads a long value. It is exact in all the range of long.
    * @return The long (number) value of 'js'
    */
   public long rLong () {
-    return Long.parseLong(rNumber());
+    JsNum n = rNumber();
+    if (!n.isLong()) {
+      exc("Expected a long value");
+    }
+    return n.toLong();
   }
 
   /**
@@ -327,156 +653,194 @@ public class Js {
    * @return The double (number) value of 'js'
    */
   public double rDouble () {
-    return Double.parseDouble(rNumber());
+    return rNumber().toDouble();
   }
 
-  /**
-   * Reads a string value.
-   * @return The string value of 'js'
-   */
-  public String rString () {
-    blanks();
-    if (ix == len) {
-      exc("String");
-    }
-
-    char ch = tx.charAt(ix);
-    if (ch != '"') {
-      exc("Expected a string");
-    }
-    ch = rnext();
+  // Starts at '"' and ends after '"'. If 'sb' is not null, the string read
+  // is appended to it.
+  void rStringValue (StringBuilder sb) {
+    rStringValue(sb, ix + 1);
+  }
 
-    StringBuilder sb = new StringBuilder();
+  // Starts at '"' and ends after '"', as 'rStringValue(sb)'. Characters
+  // before 'from' are already known not to be '"' or '\\'.
+  void rStringValue (StringBuilder sb, int from) {
+    int run = ix + 1;
+    ix = from;
+    char ch = from < end ? tx.charAt(from) : '\0';
     for (;;) {
-      if (ix == len) {
+      if (ix == end) {
         exc("Unexpected end of string");
       }
 
       if (ch == '"') {
+        if (sb != null) {
+          append(sb, run, ix);
+        }
         ++ix;
-        break;
+        return;
       }
 
       if (ch == '\\') {
+        if (sb != null) {
+          append(sb, run, ix);
+        }
         ch = rnext();
-        if (ch == '"') {
-          sb.append('"');
-        } else if (ch == '\\') {
-          sb.append('\\');
-        } else if (ch == '/') {
-          sb.append('/');
-        } else if (ch == 'b') {
-          sb.append('\b');
+        char esc = ch;
+        if (ch == 'b') {
+          esc = '\b';
         } else if (ch == 'f') {
-          sb.append('\f');
+          esc = '\f';
         } else if (ch == 'n') {
-          sb.append('\n');
+          esc = '\n';
         } else if (ch == 'r') {
-          sb.append('\r');
+          esc = '\r';
         } else if (ch == 't') {
-          sb.append('\t');
+          esc = '\t';
         } else if (ch == 'u') {
-          ch = rnext();
           int code = 0;
-          if (isHex(ch)) {
-            code += 4096 * hexValue(ch);
+          for (int i = 0; i < 4; ++i) {
             ch = rnext();
-            if (isHex(ch)) {
-              code += 256 * hexValue(ch);
-              ch = rnext();
-              if (isHex(ch)) {
-                code += 16 * hexValue(ch);
-                ch = rnext();
-                if (isHex(ch)) {
-                  code += hexValue(ch);
-                  sb.append((char)code);
-                } else {
-                  exc("Expected a four digits hexadecimal value");
-                }
-              } else {
-                exc("Expected a four digits hexadecimal value");
-              }
-            } else {
+            if (!isHex(ch)) {
               exc("Expected a four digits hexadecimal value");
             }
-          } else {
-            exc("Expected a four digits hexadecimal value");
+            code = code * 16 + hexValue(ch);
           }
-        } else {
+          esc = (char)code;
+        } else if (ch != '"' && ch != '\\' && ch != '/') {
           exc("Expected an escape value");
         }
+        if (sb != null) {
+          sb.append(esc);
+        }
 
         ch = rnext();
+        run = ix;
         continue;
       }
 
-      sb.append(ch);
       ch = rnext();
     }
+  }
 
-    if (!rend()) {
-      excSpare("string");
-    }
+  // Starts at '"' and ends after '"'.
+  String rStringValue () {
+    return rStringIn(null);
+  }
 
-    ix = 0;
-    return sb.toString();
+  // Starts at '"' and ends after '"'. Strings without escapes are copied
+  // directly from the text. The other ones are decoded in 'buf', which is
+  // cleared first, or in a new StringBuilder if 'buf' is null.
+  String rStringIn (StringBuilder buf) {
+    int begin = ix + 1;
+    for (int i = begin; i < end; ++i) {
+      char ch = tx.charAt(i);
+      if (ch == '"') {
+        ix = i + 1;
+        return str(begin, i);
+      }
+      if (ch == '\\') {
+        if (buf == null) {
+          buf = new StringBuilder(i - begin + 16);
+        } else {
+          buf.setLength(0);
+        }
+        rStringValue(buf, i);
+        return buf.toString();
+      }
+    }
+    ix = end;
+    exc("Unexpected end of string");
+    return null;
   }
 
   /**
-   * Reads an array value.
-   * @return The array value of 'js'
+   * Reads a string value.
+   * @return The string value of 'js'
    */
-  public ArrayList<Js> rArray () {
-    ArrayList<Js> a = new ArrayList<>();
+  public String rString () {
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end) {
+      js.exc("String");
+    }
 
-    blanks();
-    if (ix == len) {
-      exc("Expected an array");
+    if (tx.charAt(js.ix) != '"') {
+      js.exc("Expected a string");
     }
+    String r = js.rStringValue();
+
+    if (!js.rend()) {
+      js.excSpare("string");
+    }
+    return r;
+  }
 
+  // Starts at the first character of a value which is not an array or an
+  // object and ends after it + BLANKS. The value is only checked.
+  void rScalarValue () {
     char ch = tx.charAt(ix);
-    if (ch != '[') {
-      exc("Expected an array");
+    if (ch == '"') {
+      rStringValue(null);
+    } else if (ch == 'n' && starts("null")) {
+      ix += 4;
+    } else if (ch == 't' && starts("true")) {
+      ix += 4;
+    } else if (ch == 'f' && starts("false")) {
+      ix += 5;
+    } else {
+      skipNumber();
     }
-    ++ix;
+    blanks();
+  }
 
+  // Starts at the first character of a value and ends after it + BLANKS.
+  // Containers are returned already decoded. Strings are only checked.
+  // Object keys are shared through 'keys'.
+  Js rValue (JsKeys keys) {
+    int begin = ix;
+    Object v = null;
+    char ch = tx.charAt(ix);
+    if (ch == '[') {
+      v = rArrayValue(keys);
+    } else if (ch == '{') {
+      v = rObjectValue(keys);
+    } else {
+      rScalarValue();
+    }
+
+    return view(begin, ix, v);
+  }
+
+  // Starts at '[' and ends after ']' + BLANKS
+  ArrayList<Js> rArrayValue (JsKeys keys) {
+    ArrayList<Js> a = new ArrayList<>();
+
+    ++ix;
     blanks();
-    if (ix == len) {
+    if (ix == end) {
       exc("Unexpected end of array");
     }
-    ch = tx.charAt(ix);
+    char ch = tx.charAt(ix);
 
     if (ch == ']') {
       ++ix;
-      if (!rend()) {
-        excSpare("array");
-      }
-      ix = 0;
+      blanks();
       return a;
     }
 
     for (;;) {
-      int start = ix;
-
-      if (ch == '[') {
-        skipArray();
-      } else if (ch == '{') {
-        skipObject();
-      } else if (ch == '"') {
-        skipString();
-      } else {
-        skipValue();
-      }
-      a.add(new Js(tx.substring(start, ix)));
+      a.add(rValue(keys));
 
-      if (ix == len) {
+      if (ix == end) {
         exc("Unexpected end of array");
       }
 
       ch = tx.charAt(ix);
       if (ch == ']') {
         ++ix;
-        break;
+        blanks();
+        return a;
       }
       if (ch != ',') {
         exc("Expected ','");
@@ -484,104 +848,59 @@ public class Js {
       ++ix;
 
       blanks();
-      if (ix == len) {
+      if (ix == end) {
         exc("Unexpected end of array");
       }
-      ch = tx.charAt(ix);
-    }
-
-    if (!rend()) {
-      excSpare("array");
     }
-
-    ix = 0;
-    return a;
   }
 
-  /**
-   * Reads an object value.
-   * @return The object value of 'js'
-   */
-  public HashMap<String, Js> rObject () {
+  // Starts at '{' and ends after '}' + BLANKS
+  HashMap<String, Js> rObjectValue (JsKeys keys) {
     HashMap<String, Js> h = new HashMap<>();
 
-    blanks();
-    if (ix == len) {
-      exc("Expected an object");
-    }
-
-    char ch = tx.charAt(ix);
-    if (ch != '{') {
-      exc("Expected an object");
-    }
     ++ix;
-
     blanks();
-    if (ix == len) {
+    if (ix == end) {
       exc("Unexpected end of object");
     }
-    ch = tx.charAt(ix);
+    char ch = tx.charAt(ix);
 
     if (ch == '}') {
       ++ix;
-      if (!rend()) {
-        excSpare("object");
-      }
-      ix = 0;
+      blanks();
       return h;
     }
 
-    int lenCache = len;
     for (;;) {
-      int start = ix;
       if (ch != '"') {
         exc("Expected '\"'");
       }
-      skipString();
-      if (ix == len) {
+      String key = keys.rKey(this);
+
+      blanks();
+      if (ix == end) {
         exc("Unexpected end of object key");
       }
-
-      len = ix;
-      ix = start;
-      String key = rString();
-
-      ix = len;
-      len = lenCache;
-
-      ch = tx.charAt(ix);
-      if (ch != ':') {
+      if (tx.charAt(ix) != ':') {
         exc("Expected ':'");
       }
       ++ix;
 
       blanks();
-      if (ix == len) {
+      if (ix == end) {
         exc("Expected an object value");
       }
+      h.put(key, rValue(keys));
 
-
-      start = ix;
-      ch = tx.charAt(ix);
-      if (ch == '[') {
-        skipArray();
-      } else if (ch == '{') {
-        skipObject();
-      } else if (ch == '"') {
-        skipString();
-      } else {
-        skipValue();
-      }
-      h.put(key, new Js(tx.substring(start, ix)));
-
-      if (ix == len) {
+      if (ix == end) {
         exc("Unexpected end of object value");
       }
 
       ch = tx.charAt(ix);
       if (ch == '}') {
         ++ix;
-        break;
+        blanks();
+        return h;
       }
       if (ch != ',') {
         exc("Expected ','");
@@ -589,26 +908,737 @@ public class Js {
       ++ix;
 
       blanks();
-      if (ix == len) {
+      if (ix == end) {
         exc("Unexpected end of object");
       }
       ch = tx.charAt(ix);
     }
+  }
 
-    if (!rend()) {
-      excSpare("object");
+  /**
+   * Reads an array value.<p>
+   * All the text is read in only one pass and elements are returned with
+   * their arrays and objects already decoded. Repeated keys of objects share
+   * the same String (see 'globalKeys').
+   * @return The array value of 'js'
+   */
+  @SuppressWarnings("unchecked")
+  public ArrayList<Js> rArray () {
+    Object v = decoded();
+    if (v instanceof ArrayList) {
+      return new ArrayList<>((ArrayList<Js>)v);
     }
 
-    ix = 0;
-    return h;
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end) {
+      js.exc("Expected an array");
+    }
+    if (tx.charAt(js.ix) != '[') {
+      js.exc("Expected an array");
+    }
+    ArrayList<Js> a = js.rArrayValue(JsKeys.of());
+
+    if (!js.rend()) {
+      js.excSpare("array");
+    }
+    if (memo == null) {
+      return a;
+    }
+    keep(a);
+    return new ArrayList<>(a);
   }
 
-  @Override
-  public String toString () {
-    return tx;
+  // Starts at the beginning of 'js' and ends at the first element of an
+  // array or after its end + BLANKS. Returns false if the array is empty.
+  boolean rArrayStart () {
+    blanks();
+    if (ix == end || tx.charAt(ix) != '[') {
+      exc("Expected an array");
+    }
+    return rFirst(']');
   }
 
-  static boolean isHex (char ch) {
+  // Checks that the array read by 'rArrayStart' is the whole 'js'.
+  void rArrayEnd () {
+    if (!rend()) {
+      excSpare("array");
+    }
+  }
+
+  // Starts at the first character of a number and ends after it + BLANKS.
+  JsNum rNumberElement (JsNum num) {
+    int r = num.read(tx, ix, end);
+    if (r < 0) {
+      ix = -1 - r;
+      exc("Expected a digit");
+    }
+    ix = r;
+    blanks();
+    return num;
+  }
+
+  // Starts at the first character of a boolean and ends after it + BLANKS.
+  boolean rBooleanElement () {
+    boolean r = true;
+    if (starts("true")) {
+      ix += 4;
+    } else if (starts("false")) {
+      ix += 5;
+      r = false;
+    } else {
+      exc("Expected true or false");
+    }
+    blanks();
+    return r;
+  }
+
+  /**
+   * Reads an array of int values.<p>
+   * Elements are read directly in the returned array, without making a Js
+   * for each one.
+   * @return The array value of 'js'
+   */
+  public int[] rIntArray () {
+    int[] r = new int[16];
+    int n = 0;
+    JsNum num = new JsNum();
+    Js js = cursor();
+    if (js.rArrayStart()) {
+      do {
+        js.rNumberElement(num);
+        long v = num.isLong() ? num.toLong() : Long.MAX_VALUE;
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+          js.exc("Expected an int value");
+        }
+        if (n == r.length) {
+          r = Arrays.copyOf(r, n * 2);
+        }
+        r[n++] = (int)v;
+      } while (js.rNext(']'));
+    }
+    js.rArrayEnd();
+    return Arrays.copyOf(r, n);
+  }
+
+  /**
+   * Reads an array of long values.<p>
+   * Elements are read directly in the returned array, without making a Js
+   * for each one.
+   * @return The array value of 'js'
+   */
+  public long[] rLongArray () {
+    long[] r = new long[16];
+    int n = 0;
+    JsNum num = new JsNum();
+    Js js = cursor();
+    if (js.rArrayStart()) {
+      do {
+        js.rNumberElement(num);
+        if (!num.isLong()) {
+          js.exc("Expected a long value");
+        }
+        if (n == r.length) {
+          r = Arrays.copyOf(r, n * 2);
+        }
+        r[n++] = num.toLong();
+      } while (js.rNext(']'));
+    }
+    js.rArrayEnd();
+    return Arrays.copyOf(r, n);
+  }
+
+  /**
+   * Reads an array of double values.<p>
+   * Elements are read directly in the returned array, without making a Js
+   * for each one.
+   * @return The array value of 'js'
+   */
+  public double[] rDoubleArray () {
+    double[] r = new double[16];
+    int n = 0;
+    JsNum num = new JsNum();
+    Js js = cursor();
+    if (js.rArrayStart()) {
+      do {
+        js.rNumberElement(num);
+        if (n == r.length) {
+          r = Arrays.copyOf(r, n * 2);
+        }
+        r[n++] = num.toDouble();
+      } while (js.rNext(']'));
+    }
+    js.rArrayEnd();
+    return Arrays.copyOf(r, n);
+  }
+
+  /**
+   * Reads an array of boolean values.<p>
+   * Elements are read directly in the returned array, without making a Js
+   * for each one.
+   * @return The array value of 'js'
+   */
+  public boolean[] rBooleanArray () {
+    boolean[] r = new boolean[16];
+    int n = 0;
+    Js js = cursor();
+    if (js.rArrayStart()) {
+      do {
+        boolean v = js.rBooleanElement();
+        if (n == r.length) {
+          r = Arrays.copyOf(r, n * 2);
+        }
+        r[n++] = v;
+      } while (js.rNext(']'));
+    }
+    js.rArrayEnd();
+    return Arrays.copyOf(r, n);
+  }
+
+  /**
+   * Reads an array of string values.<p>
+   * Elements are read directly in the returned array, without making a Js
+   * for each one.
+   * @return The array value of 'js'
+   */
+  public String[] rStringArray () {
+    String[] r = new String[16];
+    int n = 0;
+    StringBuilder buf = new StringBuilder();
+    Js js = cursor();
+    if (js.rArrayStart()) {
+      do {
+        if (tx.charAt(js.ix) != '"') {
+          js.exc("Expected a string");
+        }
+        String s = js.rStringIn(buf);
+        js.blanks();
+        if (n == r.length) {
+          r = Arrays.copyOf(r, n * 2);
+        }
+        r[n++] = s;
+      } while (js.rNext(']'));
+    }
+    js.rArrayEnd();
+    return Arrays.copyOf(r, n);
+  }
+
+  /**
+   * Reads an array value decoding its elements in parallel.<p>
+   * First the text is scanned once, without decoding it, to find where
+   * every element starts and ends. After that each element is passed to
+   * 'fn' in a parallel stream and results are gathered with 'collector',
+   * keeping the original order. For example:<pre>
+   *   List&lt;Map&lt;String, Js&gt;&gt; rs =
+   *     js.rArrayParallel(e -&gt; e.rObject(), Collectors.toList());
+   * </pre>
+   * It is useful for very big arrays whose elements are expensive to
+   * decode.
+   * @param <T> Type of decoded elements
+   * @param <R> Type of result
+   * @param fn Element decoder. It is called from several threads.
+   * @param collector Collector of decoded elements
+   * @return The array value of 'js' decoded and collected
+   */
+  public <T, R> R rArrayParallel (
+    Function<Js, T> fn, Collector<? super T, ?, R> collector
+  ) {
+    // Pairs [begin, end) of elements.
+    int[] bounds = new int[64];
+    int n = 0;
+    Js js = cursor();
+    if (js.rArrayStart()) {
+      do {
+        if (n == bounds.length) {
+          bounds = Arrays.copyOf(bounds, n * 2);
+        }
+        int begin = js.ix;
+        js.skip();
+        if (js.ix == begin) {
+          js.exc("Expected a value");
+        }
+        bounds[n++] = begin;
+        bounds[n++] = js.ix;
+      } while (js.rNext(']'));
+    }
+    js.rArrayEnd();
+
+    int[] bs = bounds;
+    return IntStream.range(0, n / 2).parallel()
+      .mapToObj(i -> fn.apply(view(bs[i * 2], bs[i * 2 + 1])))
+      .collect(collector)
+    ;
+  }
+
+  /**
+   * Like 'rArrayParallel(fn, collector)', but using threads of 'pool'
+   * instead of the common pool.
+   * @param <T> Type of decoded elements
+   * @param <R> Type of result
+   * @param pool Pool which decodes elements
+   * @param fn Element decoder. It is called from several threads.
+   * @param collector Collector of decoded elements
+   * @return The array value of 'js' decoded and collected
+   */
+  public <T, R> R rArrayParallel (
+    ForkJoinPool pool, Function<Js, T> fn, Collector<? super T, ?, R> collector
+  ) {
+    return pool.submit(() -> rArrayParallel(fn, collector)).join();
+  }
+
+  /**
+   * Reads an object value.<p>
+   * All the text is read in only one pass and values are returned with
+   * their arrays and objects already decoded. Repeated keys share the same
+   * String (see 'globalKeys').
+   * @return The object value of 'js'
+   */
+  @SuppressWarnings("unchecked")
+  public HashMap<String, Js> rObject () {
+    Object v = decoded();
+    if (v instanceof HashMap) {
+      return new HashMap<>((HashMap<String, Js>)v);
+    }
+    if (v instanceof JsObject) {
+      return new HashMap<>((JsObject)v);
+    }
+
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end) {
+      js.exc("Expected an object");
+    }
+    if (tx.charAt(js.ix) != '{') {
+      js.exc("Expected an object");
+    }
+    HashMap<String, Js> h = js.rObjectValue(JsKeys.of());
+
+    if (!js.rend()) {
+      js.excSpare("object");
+    }
+    if (memo == null) {
+      return h;
+    }
+    keep(h);
+    return new HashMap<>(h);
+  }
+
+  /**
+   * Sets where keys of objects read by 'rArray', 'rObject', 'rArrayCompact'
+   * and 'rObjectCompact' are kept.<p>
+   * By default each reading keeps its own table, and keys repeated in the
+   * same reading are decoded only once and share the same String. If
+   * 'value' is true, every reading uses a global table (of up to 4096 keys
+   * of up to 64 characters), and keys are shared between readings too.
+   * The default is false.
+   * @param value If the global table is used.
+   */
+  public static void globalKeys (boolean value) {
+    JsKeys.global = value;
+  }
+
+  /**
+   * Reads an object value in a compact form.<p>
+   * It is read as 'rObject' does, but objects (this one and the ones inside
+   * it) are returned as JsObject, which uses several times less memory than
+   * a HashMap and shares its keys with other objects with the same keys.
+   * @return The object value of 'js'
+   */
+  public JsObject rObjectCompact () {
+    Object v = decoded();
+    if (v instanceof JsObject) {
+      return (JsObject)v;
+    }
+
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end || tx.charAt(js.ix) != '{') {
+      js.exc("Expected an object");
+    }
+    JsObject r = new JsObject.Reader().rObject(js);
+
+    if (!js.rend()) {
+      js.excSpare("object");
+    }
+    keep(r);
+    return r;
+  }
+
+  /**
+   * Reads an array value in a compact form.<p>
+   * It is read as 'rArray' does, but objects inside it are decoded as
+   * JsObject (see 'rObjectCompact'). Objects of the array which have the
+   * same keys in the same order share them.
+   * @return The array value of 'js'
+   */
+  public ArrayList<Js> rArrayCompact () {
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end || tx.charAt(js.ix) != '[') {
+      js.exc("Expected an array");
+    }
+    ArrayList<Js> r = new JsObject.Reader().rArray(js);
+
+    if (!js.rend()) {
+      js.excSpare("array");
+    }
+    return r;
+  }
+
+  /**
+   * Returns a Js with the same text and a structural index of it.<p>
+   * The index keeps the positions of strings, arrays and objects, and
+   * makes values which are skipped (by 'select', 'selectAll',
+   * 'rArrayParallel', ...) to be jumped over instead of being read. Values
+   * which are read are checked as usual, but values which are jumped over
+   * are only checked to be well closed.<p>
+   * Making the index reads all the text once and uses about 8 bytes for
+   * each quote, bracket and brace. If the module jdk.incubator.vector is
+   * loaded, the text is read in blocks with vector instructions.
+   * @return A Js with index.
+   * @throws IllegalArgumentException If strings, arrays or objects of 'js'
+   *         are not well closed.
+   */
+  public Js indexed () {
+    return new Js(tx, start, end, value, JsIndex.of(tx, start, end), memo);
+  }
+
+  /**
+   * Returns a Js with the same text which keeps the values decoded by
+   * 'rArray', 'rObject' and 'rObjectCompact'. Then the text is decoded only
+   * the first time one of these functions is called, and later calls return
+   * copies of the value kept (or the same JsObject, which is immutable).<p>
+   * Views of the returned Js (values selected by 'select', 'selectAll',
+   * 'rArrayParallel', ...) keep their decoded values too. Elements of
+   * arrays and objects are always returned already decoded.<p>
+   * Values are kept with soft references, so they are released by the
+   * garbage collector when memory is needed, and decoded again if they are
+   * requested after that.
+   * @return A Js which keeps its decoded values or this if it already does.
+   */
+  public Js cached () {
+    return memo != null
+      ? this
+      : new Js(tx, start, end, value, idx, new Memo())
+    ;
+  }
+
+  /**
+   * Checks that 'js' is a well formed JSON text, without limits other than
+   * 512 nested arrays and objects (see validate(int, int, int, int)).
+   * @return this.
+   * @throws IllegalArgumentException If 'js' is not well formed or goes
+   *         over the limits.
+   */
+  public Js validate () {
+    return validate(
+      512, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE
+    );
+  }
+
+  /**
+   * Checks that 'js' is a well formed JSON text (RFC 8259) and that it does
+   * not go over the limits passed.<p>
+   * The text is read only once, without recursion and without making values,
+   * so bad texts are rejected in a time proportional to the characters read
+   * and with constant memory, whatever their nesting is. After that, the
+   * value can be decoded safely with the other functions.<p>
+   * The check is stricter than the reading functions: blanks are only
+   * spaces, tabs and line breaks, strings can not have control characters
+   * and, when the text is UTF-8, its bytes must be valid UTF-8.
+   * @param maxDepth Maximum number of nested arrays and objects.
+   * @param maxString Maximum length of strings and keys in the JSON text
+   *        (bytes in UTF-8 texts), without quotes and counting escapes as
+   *        they are written.
+   * @param maxValues Maximum number of values, counting every value of
+   *        arrays and objects and the arrays and objects themselves.
+   * @param maxSize Maximum length of the JSON text (bytes in UTF-8 texts).
+   * @return this.
+   * @throws IllegalArgumentException If 'js' is not well formed or goes
+   *         over the limits. The message tells the position of the error.
+   */
+  public Js validate (int maxDepth, int maxString, int maxValues, int maxSize) {
+    if (end - start > maxSize) {
+      throw new IllegalArgumentException(
+        "JSON text too long (" + (end - start) + " > " + maxSize + ")"
+      );
+    }
+    new JsValidator(tx, start, end, maxString).run(maxDepth, maxValues);
+    return this;
+  }
+
+  /**
+   * Returns the value of the key 'key' of an object.<p>
+   * Values are skipped without decoding them and no Map is made. If 'key'
+   * is repeated, its last value is returned, as in 'rObject', so the object
+   * is read until its end.
+   * @param key Key
+   * @return The value or Optional.empty() if 'js' has not the key 'key'.
+   * @throws IllegalArgumentException If 'js' is not an object.
+   */
+  @SuppressWarnings("unchecked")
+  public Optional<Js> get (String key) {
+    Object v = decoded();
+    if (v instanceof Map) {
+      return Optional.ofNullable(((Map<String, Js>)v).get(key));
+    }
+
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end || tx.charAt(js.ix) != '{') {
+      js.exc("Expected an object");
+    }
+    Js r = null;
+    if (js.rFirst('}')) {
+      do {
+        boolean found = js.rKey(key);
+        int begin = js.ix;
+        js.skip();
+        if (js.ix == begin) {
+          js.exc("Expected a value");
+        }
+        if (found) {
+          r = js.view(begin, js.ix);
+        }
+      } while (js.rNext('}'));
+    }
+    return Optional.ofNullable(r);
+  }
+
+  /**
+   * Returns the element 'index' of an array.<p>
+   * The array is read only until the element is found. Previous elements
+   * are skipped without decoding them and no List is made.
+   * @param index Index of element. It can be out of range.
+   * @return The element or Optional.empty() if 'js' has not the element
+   *         'index'.
+   * @throws IllegalArgumentException If 'js' is not an array.
+   */
+  @SuppressWarnings("unchecked")
+  public Optional<Js> at (int index) {
+    Object v = decoded();
+    if (v instanceof List) {
+      List<Js> a = (List<Js>)v;
+      return index >= 0 && index < a.size()
+        ? Optional.of(a.get(index))
+        : Optional.empty()
+      ;
+    }
+
+    Js js = cursor();
+    js.blanks();
+    if (js.ix == end || tx.charAt(js.ix) != '[') {
+      js.exc("Expected an array");
+    }
+    if (index >= 0 && js.rFirst(']')) {
+      int i = 0;
+      do {
+        int begin = js.ix;
+        js.skip();
+        if (js.ix == begin) {
+          js.exc("Expected a value");
+        }
+        if (i == index) {
+          return Optional.of(js.view(begin, js.ix));
+        }
+        ++i;
+      } while (js.rNext(']'));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the first value selected by 'path' (see JsPath), without
+   * decoding the values which are not in the path. For example:<pre>
+   *   new Js(tx).select("users[3].name").get().rString()
+   * </pre>
+   * @param path Path
+   * @return The value or Optional.empty() if there is no one.
+   */
+  public Optional<Js> select (String path) {
+    return JsPath.compile(path).first(this);
+  }
+
+  /**
+   * Returns every value selected by 'path' (see JsPath), without
+   * decoding the values which are not in the path. For example:<pre>
+   *   new Js(tx).selectAll("users[*].name").map(Js::rString)
+   * </pre>
+   * @param path Path
+   * @return The values, in the order they are in 'js'.
+   */
+  public Stream<Js> selectAll (String path) {
+    return JsPath.compile(path).all(this);
+  }
+
+  /**
+   * Writes the text of 'js' in 'out' without blanks.<p>
+   * The text is read only once and its values are copied directly, without
+   * decoding them. If 'out' is not a StringBuilder, the text is sent to it
+   * by blocks of fixed size, so memory does not depend on the size of 'js'.
+   * 'out' is not flushed nor closed.
+   * @param out Target of the text.
+   * @throws IllegalArgumentException If 'js' is not a valid JSON text.
+   * @throws java.io.UncheckedIOException If 'out' fails.
+   */
+  public void minify (Appendable out) {
+    JsFormat.write(this, out, -1, false);
+  }
+
+  /**
+   * Returns the text of 'js' without blanks (see minify(Appendable)).
+   * @return A new Js.
+   * @throws IllegalArgumentException If 'js' is not a valid JSON text.
+   */
+  public Js minify () {
+    StringBuilder sb = new StringBuilder(end - start);
+    minify(sb);
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Writes the text of 'js' in 'out' with an element by line and indented
+   * 'indent' spaces by level. Empty arrays and objects are written as '[]'
+   * and '{}'. For example, with 'indent' 2:<pre>
+   *   {
+   *     "a": [
+   *       1,
+   *       []
+   *     ]
+   *   }
+   * </pre>
+   * It is read and written as in minify(Appendable).
+   * @param out Target of the text.
+   * @param indent Spaces by level.
+   * @throws IllegalArgumentException If 'js' is not a valid JSON text.
+   * @throws java.io.UncheckedIOException If 'out' fails.
+   */
+  public void pretty (Appendable out, int indent) {
+    if (indent < 0) {
+      throw new IllegalArgumentException("Negative indentation " + indent);
+    }
+    JsFormat.write(this, out, indent, false);
+  }
+
+  /**
+   * Returns the text of 'js' indented (see pretty(Appendable, int)).
+   * @param indent Spaces by level.
+   * @return A new Js.
+   * @throws IllegalArgumentException If 'js' is not a valid JSON text.
+   */
+  public Js pretty (int indent) {
+    StringBuilder sb = new StringBuilder(end - start);
+    pretty(sb, indent);
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Writes the canonical text of 'js' in 'out'. Two JSON texts with the
+   * same values have the same canonical text, whatever their blanks,
+   * escapes, number formats and order of keys are. Then it can be used to
+   * compare, hash or sign JSON values (for example the ones written by
+   * 'write(Map)', whose keys are in the order of HashMap).<p>
+   * The canonical text has not blanks. Its object keys are sorted by
+   * String.compareTo and, if some of them is repeated, only its last
+   * value is kept. Strings only escape '"', '\\' and control characters.
+   * Integers in the range of long are written with all their digits and the
+   * other numbers as the shortest decimal of their double value (without
+   * fraction if it is integral).<p>
+   * It is written as in minify(Appendable), but keys of each object are
+   * decoded and kept until the object is written.
+   * @param out Target of the text.
+   * @throws IllegalArgumentException If 'js' is not a valid JSON text or
+   *         it has a number out of the range of double.
+   * @throws java.io.UncheckedIOException If 'out' fails.
+   */
+  public void canonical (Appendable out) {
+    JsFormat.write(this, out, -1, true);
+  }
+
+  /**
+   * Returns the canonical text of 'js' (see canonical(Appendable)).
+   * @return A new Js.
+   * @throws IllegalArgumentException If 'js' is not a valid JSON text or
+   *         it has a number out of the range of double.
+   */
+  public Js canonical () {
+    StringBuilder sb = new StringBuilder(end - start);
+    canonical(sb);
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Returns the text of 'js'. If 'js' is part of another Js, its text is
+   * copied only here.
+   * @return The text of 'js'
+   */
+  @Override
+  public String toString () {
+    return start == 0 && end == tx.length() && tx instanceof String
+      ? (String)tx
+      : str(start, end)
+    ;
+  }
+
+  /**
+   * Returns the structural hash of 'js', computed from its text without
+   * decoding it. Blanks, escapes, number formats and the order of object
+   * keys do not change it (see 'equals'). If 'js' is not a valid JSON text,
+   * it is the hash of its text as String.<p>
+   * It is computed only once, the first time it is requested.
+   * @return The hash of 'js'.
+   */
+  @Override
+  public int hashCode () {
+    int h = hash;
+    if (h == 0 && !hashIsZero) {
+      h = JsHash.hash(this);
+      if (h == 0) {
+        hashIsZero = true;
+      } else {
+        hash = h;
+      }
+    }
+    return h;
+  }
+
+  /**
+   * Returns true if 'o' is a Js with the same value as 'js', comparing
+   * their texts without decoding them. For example, '{"a": [1.0, "\\u00f1"]}'
+   * and '{"a":[1,"ñ"]}' are equals.<p>
+   * Values are compared as in 'canonical': strings by their decoded
+   * characters, numbers by their normalized value and objects by their
+   * entries, whatever their order is. If a key is repeated, only its last
+   * value is compared, as 'canonical' and 'rObject' do, so 'js' is equals
+   * to 'js.canonical()'. Texts which are not valid JSON are compared as
+   * Strings.<p>
+   * Texts with different hashes are not compared, and texts which are
+   * the same are not read, so Js values can be used as keys of HashMap or
+   * HashSet to cache or deduplicate JSON documents.
+   * @param o Another object.
+   * @return true if 'o' is a Js equals to this.
+   */
+  @Override
+  public boolean equals (Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof Js)) {
+      return false;
+    }
+    Js js = (Js)o;
+    if (tx == js.tx && start == js.start && end == js.end) {
+      return true;
+    }
+    return hashCode() == js.hashCode() && JsHash.equal(this, js);
+  }
+
+  // Appends the text of 'js' to 'sb' without copying it in a new String.
+  void appendTo (StringBuilder sb) {
+    append(sb, start, end);
+  }
+
+  static boolean isHex (char ch) {
     return (ch >= '0' && ch <= '9') ||
            (ch >= 'a' && ch <= 'f') ||
            (ch >= 'A' && ch <= 'F');
@@ -674,38 +1704,137 @@ public class Js {
    * @return Js value
    */
   public static Js write(double value) {
-    return new Js(String.valueOf(value));
+    StringBuilder sb = new StringBuilder(24);
+    JsNum.append(sb, value);
+    return new Js(sb.toString());
   }
 
   /**
-   * Writes a string value
+   * Writes an array of int values
    * @param value value to write
    * @return Js value
    */
-  public static Js write(String value) {
-    StringBuilder sb = new StringBuilder();
+  public static Js write(int[] value) {
+    StringBuilder sb = new StringBuilder(value.length * 6 + 2);
+    sb.append('[');
+    for (int i = 0; i < value.length; ++i) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(value[i]);
+    }
+    sb.append(']');
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Writes an array of long values
+   * @param value value to write
+   * @return Js value
+   */
+  public static Js write(long[] value) {
+    StringBuilder sb = new StringBuilder(value.length * 8 + 2);
+    sb.append('[');
+    for (int i = 0; i < value.length; ++i) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(value[i]);
+    }
+    sb.append(']');
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Writes an array of double values
+   * @param value value to write
+   * @return Js value
+   */
+  public static Js write(double[] value) {
+    StringBuilder sb = new StringBuilder(value.length * 12 + 2);
+    sb.append('[');
+    for (int i = 0; i < value.length; ++i) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      JsNum.append(sb, value[i]);
+    }
+    sb.append(']');
+    return new Js(sb.toString());
+  }
+
+  // Appends 'value' to 'sb' as a JSON string.
+  static void escape (StringBuilder sb, String value) {
     sb.append('"');
-    for (int i = 0; i < value.length(); ++i) {
+    // Characters which do not need escape are appended by runs.
+    int run = 0;
+    int n = value.length();
+    for (int i = 0; i < n; ++i) {
       char ch = value.charAt(i);
+      if (ch >= ' ' && ch != '"' && ch != '\\') {
+        continue;
+      }
+      sb.append(value, run, i);
+      run = i + 1;
       switch (ch) {
         case '"': sb.append("\\\""); break;
         case '\\': sb.append("\\\\"); break;
-        default:
-          if (ch < ' ') {
-            switch(ch) {
-              case '\b': sb.append("\\b");break;
-              case '\f': sb.append("\\f");break;
-              case '\n': sb.append("\\n");break;
-              case '\r': sb.append("\\r");break;
-              case '\t': sb.append("\\t");break;
-              default: sb.append(' ');
-            }
-          } else {
-            sb.append(ch);
-          }
+        case '\b': sb.append("\\b"); break;
+        case '\f': sb.append("\\f"); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        default: sb.append(' ');
       }
     }
+    sb.append(value, run, n);
     sb.append('"');
+  }
+
+  /**
+   * Writes a string value
+   * @param value value to write
+   * @return Js value
+   */
+  public static Js write(String value) {
+    StringBuilder sb = new StringBuilder(value.length() + 2);
+    escape(sb, value);
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Writes an array of boolean values
+   * @param value value to write
+   * @return Js value
+   */
+  public static Js write(boolean[] value) {
+    StringBuilder sb = new StringBuilder(value.length * 6 + 2);
+    sb.append('[');
+    for (int i = 0; i < value.length; ++i) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(value[i]);
+    }
+    sb.append(']');
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Writes an array of string values
+   * @param value value to write
+   * @return Js value
+   */
+  public static Js write(String[] value) {
+    StringBuilder sb = new StringBuilder(value.length * 16 + 2);
+    sb.append('[');
+    for (int i = 0; i < value.length; ++i) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      escape(sb, value[i]);
+    }
+    sb.append(']');
     return new Js(sb.toString());
   }
 
@@ -717,10 +1846,15 @@ public class Js {
   public static Js write(List<Js> value) {
     StringBuilder sb = new StringBuilder();
     sb.append('[');
-    sb.append(String.join(
-      ",",
-      value.stream().map(js -> js.toString()).collect(Collectors.toList())
-    ));
+    boolean first = true;
+    for (Js js : value) {
+      if (first) {
+        first = false;
+      } else {
+        sb.append(',');
+      }
+      js.appendTo(sb);
+    }
     sb.append(']');
     return new Js(sb.toString());
   }
@@ -733,12 +1867,17 @@ public class Js {
   public static Js write(Map<String, Js> value) {
     StringBuilder sb = new StringBuilder();
     sb.append('{');
-    sb.append(String.join(
-      ",",
-      value.entrySet().stream().map(e ->
-        write(e.getKey()).toString() + ":" + e.getValue().toString()
-      ).collect(Collectors.toList())
-    ));
+    boolean first = true;
+    for (Map.Entry<String, Js> e : value.entrySet()) {
+      if (first) {
+        first = false;
+      } else {
+        sb.append(',');
+      }
+      escape(sb, e.getKey());
+      sb.append(':');
+      e.getValue().appendTo(sb);
+    }
     sb.append('}');
     return new Js(sb.toString());
   }
@@ -0,0 +1,419 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InaccessibleObjectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Codec between objects of a class and JSON.<p>
+ * Fields are bound with MethodHandles only once, when the codec is made.
+ * After that, objects are written directly in the JSON text and read
+ * directly from it, without making a Js for each field. For example:<pre>
+ *   record Point (String name, long x, long y) {}
+ *   static final JsCodec&lt;Point&gt; CODEC =
+ *     JsCodec.ofObject(Point.class, "name", "x", "y");
+ *
+ *   Js js = CODEC.write(new Point("a", 1, 2)); // {"name":"a","x":1,"y":2}
+ *   Point p = CODEC.read(js);
+ * </pre>
+ * Fields can be of type String, int, long, double, boolean or Js. Fields
+ * String and Js can be null.<p>
+ * The class must have a constructor whose parameters are the fields, in the
+ * same order (for example the canonical constructor of a record). Fields and
+ * constructor can be private.<p>
+ * Codecs are immutable and can be shared between threads.
+ */
+public class JsCodec<T> {
+  static final int STRING = 0;
+  static final int INT = 1;
+  static final int LONG = 2;
+  static final int DOUBLE = 3;
+  static final int BOOLEAN = 4;
+  static final int JS = 5;
+
+  // Mark of fields not read.
+  static final Object MISSING = new Object();
+
+  final Class<T> type;
+  final boolean isObject;
+  final String[] names;
+  // Keys already codified ('"name":'), if 'isObject'.
+  final String[] keys;
+  final int[] kinds;
+  // Getters with type (Object)fieldType.
+  final MethodHandle[] getters;
+  // Constructor with type (Object[])Object.
+  final MethodHandle constructor;
+
+  JsCodec (Class<T> type, boolean isObject, String[] names) {
+    this.type = type;
+    this.isObject = isObject;
+    this.names = names.clone();
+    int n = names.length;
+    keys = new String[n];
+    kinds = new int[n];
+    getters = new MethodHandle[n];
+
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    Class<?>[] types = new Class<?>[n];
+    try {
+      for (int i = 0; i < n; ++i) {
+        Field f = field(type, names[i]);
+        types[i] = f.getType();
+        kinds[i] = kind(types[i], names[i]);
+        f.setAccessible(true);
+        getters[i] = lookup.unreflectGetter(f)
+          .asType(MethodType.methodType(types[i], Object.class));
+
+        StringBuilder sb = new StringBuilder();
+        Js.escape(sb, names[i]);
+        keys[i] = sb.append(':').toString();
+      }
+
+      Constructor<T> c = type.getDeclaredConstructor(types);
+      c.setAccessible(true);
+      constructor = lookup.unreflectConstructor(c)
+        .asSpreader(Object[].class, n)
+        .asType(MethodType.methodType(Object.class, Object[].class));
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(
+        "Constructor " + type.getSimpleName() + Arrays.toString(types) +
+        " not found"
+      );
+    } catch (
+      IllegalAccessException | InaccessibleObjectException | SecurityException e
+    ) {
+      throw new IllegalArgumentException(
+        "Class " + type.getName() + " can not be accessed", e
+      );
+    }
+  }
+
+  static Field field (Class<?> type, String name) {
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      try {
+        return c.getDeclaredField(name);
+      } catch (NoSuchFieldException e) {
+      }
+    }
+    throw new IllegalArgumentException(
+      "Field '" + name + "' not found in " + type.getName()
+    );
+  }
+
+  static int kind (Class<?> type, String name) {
+    if (type == String.class) return STRING;
+    if (type == int.class) return INT;
+    if (type == long.class) return LONG;
+    if (type == double.class) return DOUBLE;
+    if (type == boolean.class) return BOOLEAN;
+    if (type == Js.class) return JS;
+    throw new IllegalArgumentException(
+      "Type " + type.getName() + " of field '" + name + "' is not supported"
+    );
+  }
+
+  static RuntimeException fail (Throwable e) {
+    if (e instanceof RuntimeException) {
+      return (RuntimeException)e;
+    }
+    if (e instanceof Error) {
+      throw (Error)e;
+    }
+    return new IllegalStateException(e);
+  }
+
+  /**
+   * Makes a codec which writes objects as JSON arrays with the values of
+   * 'fields', in the same order.
+   * @param <T> Type of objects
+   * @param type Class of objects
+   * @param fields Field names
+   * @return The codec.
+   * @throws IllegalArgumentException If some field or the constructor is
+   *         not found or some field type is not supported.
+   */
+  public static <T> JsCodec<T> ofArray (Class<T> type, String... fields) {
+    return new JsCodec<>(type, false, fields);
+  }
+
+  /**
+   * Makes a codec which writes objects as JSON objects with the names and
+   * values of 'fields'.<p>
+   * When reading, keys which are not in 'fields' are skipped and keys of
+   * 'fields' which are missing raise an exception.
+   * @param <T> Type of objects
+   * @param type Class of objects
+   * @param fields Field names
+   * @return The codec.
+   * @throws IllegalArgumentException If some field or the constructor is
+   *         not found or some field type is not supported.
+   */
+  public static <T> JsCodec<T> ofObject (Class<T> type, String... fields) {
+    return new JsCodec<>(type, true, fields);
+  }
+
+  // Appends 'value' to 'sb'.
+  void append (StringBuilder sb, T value) {
+    sb.append(isObject ? '{' : '[');
+    Object o = value;
+    try {
+      for (int i = 0; i < kinds.length; ++i) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        if (isObject) {
+          sb.append(keys[i]);
+        }
+        MethodHandle g = getters[i];
+        switch (kinds[i]) {
+          case STRING:
+            String s = (String)g.invokeExact(o);
+            if (s == null) {
+              sb.append("null");
+            } else {
+              Js.escape(sb, s);
+            }
+            break;
+          case INT:
+            sb.append((int)g.invokeExact(o));
+            break;
+          case LONG:
+            sb.append((long)g.invokeExact(o));
+            break;
+          case DOUBLE:
+            JsNum.append(sb, (double)g.invokeExact(o));
+            break;
+          case BOOLEAN:
+            sb.append((boolean)g.invokeExact(o));
+            break;
+          default:
+            Js js = (Js)g.invokeExact(o);
+            if (js == null) {
+              sb.append("null");
+            } else {
+              js.appendTo(sb);
+            }
+        }
+      }
+    } catch (Throwable e) {
+      throw fail(e);
+    }
+    sb.append(isObject ? '}' : ']');
+  }
+
+  // Starts at the first character of a value and ends after it + BLANKS.
+  // Unlike Js.skip, it fails if the value is empty.
+  static void skip (Js js) {
+    char ch = js.ix < js.end ? js.tx.charAt(js.ix) : ',';
+    if (ch == ',' || ch == ']' || ch == '}') {
+      js.exc("Expected a value");
+    }
+    js.skip();
+  }
+
+  // Starts at the first character of a field value and ends after it +
+  // BLANKS.
+  static Object rField (Js js, int kind, JsNum num) {
+    switch (kind) {
+      case STRING:
+        if (js.starts("null")) {
+          js.ix += 4;
+          js.blanks();
+          return null;
+        }
+        if (js.tx.charAt(js.ix) != '"') {
+          js.exc("Expected a string");
+        }
+        String s = js.rStringValue();
+        js.blanks();
+        return s;
+      case INT:
+        js.rNumberElement(num);
+        long v = num.isLong() ? num.toLong() : Long.MAX_VALUE;
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+          js.exc("Expected an int value");
+        }
+        return (int)v;
+      case LONG:
+        js.rNumberElement(num);
+        if (!num.isLong()) {
+          js.exc("Expected a long value");
+        }
+        return num.toLong();
+      case DOUBLE:
+        return js.rNumberElement(num).toDouble();
+      case BOOLEAN:
+        return js.rBooleanElement();
+      default:
+        int begin = js.ix;
+        skip(js);
+        return js.view(begin, js.ix);
+    }
+  }
+
+  int index (String name) {
+    for (int i = 0; i < names.length; ++i) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Starts at '"' of an object key and ends after its closing '"'. Returns
+  // the index of its field or -1 if it has not one. The field 'hint' is
+  // tried first. Keys are compared in the text, and only keys with escapes
+  // or, in UTF-8 texts, non ASCII characters are decoded.
+  int rKeyIndex (Js js, int hint) {
+    int n = names.length;
+    for (int k = 0; k < n; ++k) {
+      int i = hint + k < n ? hint + k : hint + k - n;
+      int end = js.rawKeyEnd(names[i]);
+      if (end != -1) {
+        js.ix = end;
+        return i;
+      }
+    }
+    int close = JsHash.rawEnd(js);
+    if (close != -1) {
+      js.ix = close + 1;
+      return -1;
+    }
+    return index(js.rStringValue());
+  }
+
+  // Starts at the first character of a value and ends after it + BLANKS.
+  T rValue (Js js, JsNum num) {
+    int n = kinds.length;
+    Object[] args = new Object[n];
+    if (isObject) {
+      if (js.tx.charAt(js.ix) != '{') {
+        js.exc("Expected an object");
+      }
+      Arrays.fill(args, MISSING);
+      if (js.rFirst('}')) {
+        // Keys are expected in the order of 'names'.
+        int hint = 0;
+        do {
+          if (js.tx.charAt(js.ix) != '"') {
+            js.exc("Expected '\"'");
+          }
+          int i = rKeyIndex(js, hint);
+          js.rColon();
+          if (i == -1) {
+            skip(js);
+          } else {
+            args[i] = rField(js, kinds[i], num);
+            hint = i + 1 < n ? i + 1 : 0;
+          }
+        } while (js.rNext('}'));
+      }
+      for (int i = 0; i < n; ++i) {
+        if (args[i] == MISSING) {
+          js.exc("Missing key '" + names[i] + "'");
+        }
+      }
+    } else {
+      if (js.tx.charAt(js.ix) != '[') {
+        js.exc("Expected an array");
+      }
+      int i = 0;
+      if (js.rFirst(']')) {
+        do {
+          if (i == n) {
+            js.exc("Expected an array of " + n + " elements");
+          }
+          args[i] = rField(js, kinds[i], num);
+          ++i;
+        } while (js.rNext(']'));
+      }
+      if (i != n) {
+        js.exc("Expected an array of " + n + " elements");
+      }
+    }
+
+    try {
+      return type.cast((Object)constructor.invokeExact(args));
+    } catch (Throwable e) {
+      throw fail(e);
+    }
+  }
+
+  /**
+   * Writes an object.
+   * @param value Object to write
+   * @return Js value
+   */
+  public Js write (T value) {
+    StringBuilder sb = new StringBuilder();
+    append(sb, value);
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Writes a list of objects as a JSON array.
+   * @param values Objects to write
+   * @return Js value
+   */
+  public Js writeList (List<T> values) {
+    StringBuilder sb = new StringBuilder();
+    sb.append('[');
+    boolean first = true;
+    for (T v : values) {
+      if (first) {
+        first = false;
+      } else {
+        sb.append(',');
+      }
+      append(sb, v);
+    }
+    sb.append(']');
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Reads an object.
+   * @param js Json value
+   * @return The object codified in 'js'.
+   */
+  public T read (Js js) {
+    Js cursor = js.cursor();
+    cursor.blanks();
+    if (cursor.ix == cursor.end) {
+      cursor.exc(isObject ? "Expected an object" : "Expected an array");
+    }
+    T r = rValue(cursor, new JsNum());
+    if (!cursor.rend()) {
+      cursor.excSpare(isObject ? "object" : "array");
+    }
+    return r;
+  }
+
+  /**
+   * Reads a JSON array of objects in only one pass.
+   * @param js Json value
+   * @return The objects codified in 'js'.
+   */
+  public ArrayList<T> readList (Js js) {
+    ArrayList<T> r = new ArrayList<>();
+    JsNum num = new JsNum();
+    Js cursor = js.cursor();
+    if (cursor.rArrayStart()) {
+      do {
+        r.add(rValue(cursor, num));
+      } while (cursor.rNext(']'));
+    }
+    cursor.rArrayEnd();
+    return r;
+  }
+}
@@ -0,0 +1,298 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+// Writer of the text of a Js in other format (see Js.minify, Js.pretty and
+// Js.canonical).
+// The text is read with the functions of Js and values are copied from it
+// directly, without decoding them, except strings and numbers in canonical
+// format, which are normalized. The text written is kept in a buffer of
+// fixed size, which is sent to the target when it is full.
+final class JsFormat {
+  final Appendable out;
+  final StringBuilder sb;
+  // Spaces of indentation by level or -1 to write without blanks.
+  final int indent;
+  // Object keys are sorted and strings and numbers are normalized.
+  final boolean canonical;
+  // Buffer to decode strings.
+  final StringBuilder str = new StringBuilder();
+  final JsNum num = new JsNum();
+
+  JsFormat (Appendable out, int indent, boolean canonical) {
+    this.out = out;
+    sb = out instanceof StringBuilder
+      ? (StringBuilder)out
+      : new StringBuilder(JsWriter.BUFFER_SIZE + JsWriter.BUFFER_SIZE / 2)
+    ;
+    this.indent = indent;
+    this.canonical = canonical;
+  }
+
+  // Writes 'js' in 'out'.
+  static void write (Js js, Appendable out, int indent, boolean canonical) {
+    JsFormat f = new JsFormat(out, indent, canonical);
+    Js cursor = js.cursor();
+    cursor.blanks();
+    if (cursor.ix == cursor.end) {
+      cursor.exc("Expected a value");
+    }
+    f.value(cursor, 0);
+    if (!cursor.rend()) {
+      cursor.exc("Spare characters after the value");
+    }
+    f.dump();
+  }
+
+  void dump () {
+    if (sb != out) {
+      try {
+        out.append(sb);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      sb.setLength(0);
+    }
+  }
+
+  void newLine (int depth) {
+    if (indent >= 0) {
+      sb.append('\n');
+      for (int i = depth * indent; i > 0; --i) {
+        sb.append(' ');
+      }
+    }
+  }
+
+  // Appends 's' as a JSON string. Only '"', '\\' and control characters
+  // are escaped, the last ones with their short escape if there is one or
+  // with '\\u00xx' if not.
+  void string (String s) {
+    sb.append('"');
+    int run = 0;
+    int n = s.length();
+    for (int i = 0; i < n; ++i) {
+      char ch = s.charAt(i);
+      if (ch >= ' ' && ch != '"' && ch != '\\') {
+        continue;
+      }
+      sb.append(s, run, i);
+      run = i + 1;
+      switch (ch) {
+        case '"': sb.append("\\\""); break;
+        case '\\': sb.append("\\\\"); break;
+        case '\b': sb.append("\\b"); break;
+        case '\f': sb.append("\\f"); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        default:
+          sb.append("\\u00")
+            .append(Character.forDigit(ch >> 4, 16))
+            .append(Character.forDigit(ch & 15, 16));
+      }
+    }
+    sb.append(s, run, n);
+    sb.append('"');
+  }
+
+  // Starts at the first character of a number and ends after it + BLANKS.
+  // Integers in the range of long are written with all their digits and
+  // the other numbers as the shortest decimal of their double value, without
+  // fraction if it is integral.
+  void number (Js js) {
+    int r = num.read(js.tx, js.ix, js.end);
+    if (r < 0) {
+      js.ix = -1 - r;
+      js.exc("Expected a digit");
+    }
+    if (num.isLong()) {
+      sb.append(num.toLong());
+    } else {
+      double d = num.toDouble();
+      if (Double.isInfinite(d)) {
+        js.exc("Number out of range");
+      }
+      if (d == Math.rint(d) && Math.abs(d) < 0x1p63) {
+        sb.append((long)d);
+      } else {
+        JsNum.append(sb, d);
+      }
+    }
+    js.ix = r;
+    js.blanks();
+  }
+
+  // Starts at the first character of a value and ends after it + BLANKS.
+  void value (Js js, int depth) {
+    if (sb.length() >= JsWriter.BUFFER_SIZE) {
+      dump();
+    }
+    char ch = js.tx.charAt(js.ix);
+    if (ch == '[') {
+      array(js, depth);
+    } else if (ch == '{') {
+      if (canonical) {
+        sortedObject(js, depth);
+      } else {
+        object(js, depth);
+      }
+    } else if (canonical && ch == '"') {
+      string(js.rStringIn(str));
+      js.blanks();
+    } else if (canonical && (ch == '-' || JsNum.isDigit(ch))) {
+      number(js);
+    } else {
+      int begin = js.ix;
+      js.rScalarValue();
+      int end = js.ix;
+      while (js.tx.charAt(end - 1) <= ' ') {
+        --end;
+      }
+      js.append(sb, begin, end);
+    }
+  }
+
+  // Starts at '[' and ends after ']' + BLANKS
+  void array (Js js, int depth) {
+    sb.append('[');
+    if (js.rFirst(']')) {
+      boolean first = true;
+      do {
+        if (first) {
+          first = false;
+        } else {
+          sb.append(',');
+        }
+        newLine(depth + 1);
+        value(js, depth + 1);
+      } while (js.rNext(']'));
+      newLine(depth);
+    }
+    sb.append(']');
+  }
+
+  // Starts at '{' and ends after '}' + BLANKS
+  void object (Js js, int depth) {
+    sb.append('{');
+    if (js.rFirst('}')) {
+      boolean first = true;
+      do {
+        if (js.tx.charAt(js.ix) != '"') {
+          js.exc("Expected '\"'");
+        }
+        if (first) {
+          first = false;
+        } else {
+          sb.append(',');
+        }
+        newLine(depth + 1);
+        int begin = js.ix;
+        js.rStringValue(null);
+        js.append(sb, begin, js.ix);
+        sb.append(indent >= 0 ? ": " : ":");
+        js.rColon();
+        value(js, depth + 1);
+      } while (js.rNext('}'));
+      newLine(depth);
+    }
+    sb.append('}');
+  }
+
+  // Starts at the first character of a value and ends after it + BLANKS.
+  // Checks the syntax of the value without writing it.
+  void check (Js js) {
+    char ch = js.tx.charAt(js.ix);
+    if (ch == '[') {
+      if (js.rFirst(']')) {
+        do {
+          check(js);
+        } while (js.rNext(']'));
+      }
+    } else if (ch == '{') {
+      if (js.rFirst('}')) {
+        do {
+          if (js.tx.charAt(js.ix) != '"') {
+            js.exc("Expected '\"'");
+          }
+          js.rStringValue(null);
+          js.rColon();
+          check(js);
+        } while (js.rNext('}'));
+      }
+    } else {
+      js.rScalarValue();
+    }
+  }
+
+  // Starts at '{' and ends after '}' + BLANKS. Keys are written in the
+  // order of String.compareTo (UTF-16 units). If a key is repeated, only
+  // its last value is written.
+  void sortedObject (Js js, int depth) {
+    sb.append('{');
+    if (!js.rFirst('}')) {
+      sb.append('}');
+      return;
+    }
+    // Keys and positions of their values.
+    String[] keys = new String[8];
+    int[] begins = new int[8];
+    int n = 0;
+    do {
+      if (js.tx.charAt(js.ix) != '"') {
+        js.exc("Expected '\"'");
+      }
+      if (n == keys.length) {
+        keys = Arrays.copyOf(keys, n * 2);
+        begins = Arrays.copyOf(begins, n * 2);
+      }
+      keys[n] = js.rStringValue();
+      js.rColon();
+      begins[n++] = js.ix;
+      char ch = js.tx.charAt(js.ix);
+      if (ch == '[' || ch == '{') {
+        js.skip();
+      } else {
+        js.rScalarValue();
+      }
+    } while (js.rNext('}'));
+    int end = js.ix;
+
+      // Indices of keys, sorted. Sort is stable, so the last one of equal keys
+    // has the last value.
+    String[] ks = keys;
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; ++i) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (i, j) -> ks[i].compareTo(ks[j]));
+
+    boolean first = true;
+    for (int k = 0; k < n; ++k) {
+      int i = order[k];
+      if (k + 1 < n && keys[order[k + 1]].equals(keys[i])) {
+        js.ix = begins[i];
+        check(js);
+        continue;
+      }
+      if (first) {
+        first = false;
+      } else {
+        sb.append(',');
+      }
+      newLine(depth + 1);
+      string(keys[i]);
+      sb.append(indent >= 0 ? ": " : ":");
+      js.ix = begins[i];
+      value(js, depth + 1);
+    }
+    js.ix = end;
+    newLine(depth);
+    sb.append('}');
+  }
+}
@@ -0,0 +1,444 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.util.Arrays;
+
+// Structural hash and equality of Js values (see Js.hashCode and Js.equals).
+// Values are read with the functions of Js, straight from the text. Hashes
+// are computed as the ones of Java values: strings as String, arrays as
+// List and objects as Map (then they do not depend on the order of keys).
+// Numbers are normalized as in Js.canonical: integers in the range of long
+// as long values and the other ones as doubles, or as longs if they are
+// integral. If a key of an object is repeated, only its last value counts,
+// as in Js.canonical and Js.rObject.
+// Texts which are not valid JSON, have numbers out of the range of double or
+// have more than MAX_DEPTH nested arrays and objects are hashed and compared
+// as plain strings.
+final class JsHash {
+  static final int NULL = 0;
+  static final int TRUE = Boolean.hashCode(true);
+  static final int FALSE = Boolean.hashCode(false);
+  // Maximum number of nested arrays and objects.
+  static final int MAX_DEPTH = 512;
+
+  // Buffers to decode strings with escapes or non ASCII UTF-8 characters.
+  final StringBuilder s1 = new StringBuilder();
+  final StringBuilder s2 = new StringBuilder();
+  final JsNum num = new JsNum();
+  // Kind of the last number read by 'number'.
+  boolean isDouble;
+  // Number of arrays and objects open.
+  int depth;
+
+  // Entries of an object.
+  static final class Entries {
+    // Hash of each entry (key hash ^ value hash) in the high 32 bits and
+    // its index in the low ones.
+    long[] hashes = new long[8];
+    // Hash of the key of each entry in the high 32 bits and its index in
+    // the low ones.
+    long[] keys = new long[8];
+    // Positions of the key and the value of each entry.
+    int[] pos = new int[16];
+    int n = 0;
+    // Position after the object + BLANKS.
+    int end;
+  }
+
+  // Starts at the beginning of 'js' and ends at the first character of
+  // its value.
+  static Js start (Js js) {
+    Js cursor = js.cursor();
+    cursor.blanks();
+    if (cursor.ix == cursor.end) {
+      cursor.exc("Expected a value");
+    }
+    return cursor;
+  }
+
+  // Starts after the value of 'js' and checks that it is the end of text.
+  static void end (Js js) {
+    if (!js.rend()) {
+      js.exc("Spare characters after the value");
+    }
+  }
+
+  // Returns the hash of 'js'.
+  static int hash (Js js) {
+    try {
+      Js cursor = start(js);
+      int r = new JsHash().value(cursor);
+      end(cursor);
+      return r;
+    } catch (IllegalArgumentException e) {
+      return js.toString().hashCode();
+    }
+  }
+
+  // Returns true if 'js1' and 'js2' have the same value. Their hashes must be
+  // equals.
+  // If one of them is not valid, the comparison either fails before its
+  // error (then the texts are different) or reaches it in both texts.
+  static boolean equal (Js js1, Js js2) {
+    try {
+      Js a = start(js1);
+      Js b = start(js2);
+      if (!new JsHash().value(a, b)) {
+        return false;
+      }
+      end(a);
+      end(b);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return js1.toString().equals(js2.toString());
+    }
+  }
+
+  // Starts at '[' or '{' and counts it as open.
+  void open (Js js) {
+    if (++depth > MAX_DEPTH) {
+      js.exc("Too many nested arrays and objects");
+    }
+  }
+
+  // Starts at '"' and returns the position of the closing '"' if the string
+  // has not escapes nor, in UTF-8 texts, non ASCII characters. Otherwise
+  // returns -1.
+  static int rawEnd (Js js) {
+    CharSequence tx = js.tx;
+    boolean utf8 = tx instanceof Utf8;
+    for (int i = js.ix + 1; i < js.end; ++i) {
+      char ch = tx.charAt(i);
+      if (ch == '"') {
+        return i;
+      }
+      if (ch == '\\' || (ch > 127 && utf8)) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  // Starts at '"' and ends after '"'. Returns the string decoded in 'buf'.
+  static StringBuilder decode (Js js, StringBuilder buf) {
+    buf.setLength(0);
+    js.rStringValue(buf);
+    return buf;
+  }
+
+  // Starts at '"' and ends after '"'. Returns the hash of the string.
+  int string (Js js) {
+    int h = 0;
+    int end = rawEnd(js);
+    if (end != -1) {
+      CharSequence tx = js.tx;
+      for (int i = js.ix + 1; i < end; ++i) {
+        h = 31 * h + tx.charAt(i);
+      }
+      js.ix = end + 1;
+      return h;
+    }
+    StringBuilder sb = decode(js, s1);
+    for (int i = 0; i < sb.length(); ++i) {
+      h = 31 * h + sb.charAt(i);
+    }
+    return h;
+  }
+
+  // Starts at the first character of a number and ends after it + BLANKS.
+  // Returns the bits of its normalized value and sets 'isDouble'.
+  long number (Js js) {
+    int r = num.read(js.tx, js.ix, js.end);
+    if (r < 0) {
+      js.ix = -1 - r;
+      js.exc("Expected a digit");
+    }
+    js.ix = r;
+    js.blanks();
+    isDouble = false;
+    if (num.isLong()) {
+      return num.toLong();
+    }
+    double d = num.toDouble();
+    if (Double.isInfinite(d)) {
+      js.exc("Number out of range");
+    }
+    if (d == Math.rint(d) && Math.abs(d) < 0x1p63) {
+      return (long)d;
+    }
+    isDouble = true;
+    return Double.doubleToLongBits(d);
+  }
+
+  // Starts at the first character of a value and ends after it + BLANKS.
+  // Returns its hash.
+  int value (Js js) {
+    char ch = js.tx.charAt(js.ix);
+    switch (ch) {
+      case '[': {
+        open(js);
+        int h = 1;
+        if (js.rFirst(']')) {
+          do {
+            h = 31 * h + value(js);
+          } while (js.rNext(']'));
+        }
+        --depth;
+        return h;
+      }
+      case '{': {
+        open(js);
+        Entries es = entries(js);
+        int h = 0;
+        for (int i = 0; i < es.n; ++i) {
+          h += (int)(es.hashes[i] >> 32);
+        }
+        --depth;
+        return h;
+      }
+      case '"': {
+        int h = string(js);
+        js.blanks();
+        return h;
+      }
+      case 't':
+      case 'f':
+      case 'n':
+        js.rScalarValue();
+        return ch == 't' ? TRUE : ch == 'f' ? FALSE : NULL;
+      default:
+        long bits = number(js);
+        return isDouble ? Long.hashCode(bits) ^ 1 : Long.hashCode(bits);
+    }
+  }
+
+  // Starts at '{' and ends after '}' + BLANKS. Returns its entries sorted
+  // by hash, without the ones whose key is repeated later.
+  Entries entries (Js js) {
+    Entries es = new Entries();
+    if (js.rFirst('}')) {
+      do {
+        if (js.tx.charAt(js.ix) != '"') {
+          js.exc("Expected '\"'");
+        }
+        int n = es.n;
+        if (n == es.hashes.length) {
+          es.hashes = Arrays.copyOf(es.hashes, n * 2);
+          es.keys = Arrays.copyOf(es.keys, n * 2);
+          es.pos = Arrays.copyOf(es.pos, n * 4);
+        }
+        es.pos[n * 2] = js.ix;
+        int k = string(js);
+        js.rColon();
+        es.pos[n * 2 + 1] = js.ix;
+        es.keys[n] = ((long)k << 32) | n;
+        es.hashes[n] = ((long)(k ^ value(js)) << 32) | n;
+        ++es.n;
+      } while (js.rNext('}'));
+    }
+    es.end = js.ix;
+    unique(js, es);
+    js.ix = es.end;
+    Arrays.sort(es.hashes, 0, es.n);
+    return es;
+  }
+
+  // Removes from 'es' the entries whose key is repeated later. Only keys
+  // with the same hash are decoded and compared.
+  static void unique (Js js, Entries es) {
+    int n = es.n;
+    long[] keys = es.keys;
+    Arrays.sort(keys, 0, n);
+    boolean[] removed = null;
+    int i = 0;
+    while (i < n) {
+      int h = (int)(keys[i] >> 32);
+      int j = i + 1;
+      while (j < n && (int)(keys[j] >> 32) == h) {
+        ++j;
+      }
+      if (j - i > 1) {
+        // Indices of entries, sorted by key. Sort is stable, so equal keys
+        // keep the order of the text.
+        String[] ks = new String[j - i];
+        Integer[] order = new Integer[j - i];
+        for (int k = 0; k < ks.length; ++k) {
+          js.ix = es.pos[(int)keys[i + k] * 2];
+          ks[k] = js.rStringValue();
+          order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> ks[a].compareTo(ks[b]));
+        for (int k = 0; k + 1 < ks.length; ++k) {
+          if (ks[order[k]].equals(ks[order[k + 1]])) {
+            if (removed == null) {
+              removed = new boolean[n];
+            }
+            removed[(int)keys[i + order[k]]] = true;
+          }
+        }
+      }
+      i = j;
+    }
+    if (removed != null) {
+      int m = 0;
+      for (int k = 0; k < n; ++k) {
+        if (!removed[k]) {
+          es.hashes[m++] = es.hashes[k];
+        }
+      }
+      es.n = m;
+    }
+  }
+
+  // Returns true if the entry in the position 'i' of 'ea' is equals to the
+  // one in the position 'j' of 'eb'.
+  boolean entry (Js a, Entries ea, int i, Js b, Entries eb, int j) {
+    int ia = (int)ea.hashes[i];
+    int ib = (int)eb.hashes[j];
+    a.ix = ea.pos[ia * 2];
+    b.ix = eb.pos[ib * 2];
+    if (!string(a, b)) {
+      return false;
+    }
+    a.ix = ea.pos[ia * 2 + 1];
+    b.ix = eb.pos[ib * 2 + 1];
+    return value(a, b);
+  }
+
+  // Starts at '{' of both objects and ends after '}' + BLANKS if they are
+  // equals. Entries are matched by their hashes and then compared.
+  boolean object (Js a, Js b) {
+    Entries ea = entries(a);
+    Entries eb = entries(b);
+    int n = ea.n;
+    if (n != eb.n) {
+      return false;
+    }
+    int i = 0;
+    while (i < n) {
+      int h = (int)(ea.hashes[i] >> 32);
+      int j = i + 1;
+      while (j < n && (int)(ea.hashes[j] >> 32) == h) {
+        ++j;
+      }
+      for (int k = i; k < j; ++k) {
+        if ((int)(eb.hashes[k] >> 32) != h) {
+          return false;
+        }
+      }
+      if (j - i == 1) {
+        if (!entry(a, ea, i, b, eb, i)) {
+          return false;
+        }
+      } else {
+        // Entries with the same hash. Equality is transitive, so each one
+        // can be matched with the first equal entry not matched yet.
+        boolean[] used = new boolean[j - i];
+        for (int k = i; k < j; ++k) {
+          int m = 0;
+          while (
+            m < used.length && (used[m] || !entry(a, ea, k, b, eb, i + m))
+          ) {
+            ++m;
+          }
+          if (m == used.length) {
+            return false;
+          }
+          used[m] = true;
+        }
+      }
+      i = j;
+    }
+    a.ix = ea.end;
+    b.ix = eb.end;
+    return true;
+  }
+
+  // Starts at '"' of both strings and ends after '"' if they are equals.
+  boolean string (Js a, Js b) {
+    int ea = rawEnd(a);
+    int eb = rawEnd(b);
+    if (ea != -1 && eb != -1) {
+      int n = ea - a.ix - 1;
+      if (n != eb - b.ix - 1) {
+        return false;
+      }
+      CharSequence ta = a.tx;
+      CharSequence tb = b.tx;
+      int ia = a.ix + 1;
+      int ib = b.ix + 1;
+      for (int i = 0; i < n; ++i) {
+        if (ta.charAt(ia + i) != tb.charAt(ib + i)) {
+          return false;
+        }
+      }
+      a.ix = ea + 1;
+      b.ix = eb + 1;
+      return true;
+    }
+    return decode(a, s1).compareTo(decode(b, s2)) == 0;
+  }
+
+  // Starts at the first character of both values and ends after them +
+  // BLANKS if they are equals.
+  boolean value (Js a, Js b) {
+    char ca = a.tx.charAt(a.ix);
+    char cb = b.tx.charAt(b.ix);
+    switch (ca) {
+      case '[': {
+        if (cb != '[') {
+          return false;
+        }
+        open(a);
+        boolean ma = a.rFirst(']');
+        boolean mb = b.rFirst(']');
+        while (ma && mb) {
+          if (!value(a, b)) {
+            --depth;
+            return false;
+          }
+          ma = a.rNext(']');
+          mb = b.rNext(']');
+        }
+        --depth;
+        return ma == mb;
+      }
+      case '{': {
+        if (cb != '{') {
+          return false;
+        }
+        open(a);
+        boolean r = object(a, b);
+        --depth;
+        return r;
+      }
+      case '"':
+        if (cb != '"' || !string(a, b)) {
+          return false;
+        }
+        a.blanks();
+        b.blanks();
+        return true;
+      case 't':
+      case 'f':
+      case 'n':
+        if (cb != ca) {
+          return false;
+        }
+        a.rScalarValue();
+        b.rScalarValue();
+        return true;
+      default: {
+        // 'a' is read first, so that it fails if it is not a number.
+        long na = number(a);
+        boolean da = isDouble;
+        if (cb != '-' && !JsNum.isDigit(cb)) {
+          return false;
+        }
+        return number(b) == na && isDouble == da;
+      }
+    }
+  }
+}
@@ -0,0 +1,202 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Structural index of a JSON text.
+// It keeps the positions of string quotes and of brackets and braces out of
+// strings, and for each opening one the index of its closing one, so that
+// Js.skip can jump over strings, arrays and objects.
+// The text is classified in blocks of 64 bytes with bit masks (Geoff
+// Langdale, Daniel Lemire, "Parsing Gigabytes of JSON per Second", 2019).
+// Masks are made with the Vector API by JsIndexVector if it is available
+// (it is compiled apart and the module jdk.incubator.vector must be
+// loaded, which 'make' only does if JDM_VECTOR=1) or byte by byte
+// otherwise.
+final class JsIndex {
+  static final long EVEN_BITS = 0x5555555555555555L;
+  static final long ODD_BITS = ~EVEN_BITS;
+  // JsIndexVector.masks or null if the Vector API is not available.
+  static final MethodHandle VECTOR = vector();
+
+  static MethodHandle vector () {
+    try {
+      return MethodHandles.lookup().findStatic(
+        Class.forName("es.dm.JsIndexVector"), "masks", MethodType.methodType(
+          void.class, JsIndex.class, ByteBuffer.class, int.class, int.class
+        )
+      );
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  // Position in the text of byte 0 of the buffer.
+  int offset;
+  // Positions of quotes, brackets and braces, in the text.
+  int[] pos = new int[64];
+  int n = 0;
+  // Index in 'pos' of the closing element of each opening one.
+  int[] match;
+  // Carries between blocks.
+  long prevOddBackslash = 0;
+  long prevInString = 0;
+
+  JsIndex (int offset) {
+    this.offset = offset;
+  }
+
+  static long prefixXor (long x) {
+    x ^= x << 1;
+    x ^= x << 2;
+    x ^= x << 4;
+    x ^= x << 8;
+    x ^= x << 16;
+    x ^= x << 32;
+    return x;
+  }
+
+  // Adds the positions of the block of 64 bytes which starts at 'base'.
+  // 'quote', 'backslash' and 'bracket' are masks of '"', '\' and '[]{}'.
+  void block (long quote, long backslash, long bracket, int base) {
+    long startEdges = backslash & ~(backslash << 1);
+    long evenStartMask = EVEN_BITS ^ prevOddBackslash;
+    long evenStarts = startEdges & evenStartMask;
+    long oddStarts = startEdges & ~evenStartMask;
+    long evenCarries = backslash + evenStarts;
+    long oddCarries = backslash + oddStarts;
+    boolean endsOdd = Long.compareUnsigned(oddCarries, backslash) < 0;
+    oddCarries |= prevOddBackslash;
+    prevOddBackslash = endsOdd ? 1 : 0;
+    long escaped = (evenCarries & ~backslash & ODD_BITS) |
+      (oddCarries & ~backslash & EVEN_BITS);
+
+    quote &= ~escaped;
+    long inString = prefixXor(quote) ^ prevInString;
+    prevInString = inString >> 63;
+
+    long bits = (bracket & ~inString) | quote;
+    int count = Long.bitCount(bits);
+    if (n + count > pos.length) {
+      pos = Arrays.copyOf(pos, Math.max(pos.length * 2, n + count));
+    }
+    base += offset;
+    while (bits != 0) {
+      pos[n++] = base + Long.numberOfTrailingZeros(bits);
+      bits &= bits - 1;
+    }
+  }
+
+  // Makes the masks of bytes [from, to) of 'bs' one by one.
+  void masks (ByteBuffer bs, int from, int to) {
+    byte[] a = null;
+    int shift = 0;
+    if (bs.hasArray()) {
+      a = bs.array();
+      shift = bs.arrayOffset();
+    }
+    for (int i = from; i < to; i += 64) {
+      int end = Math.min(64, to - i);
+      long quote = 0;
+      long backslash = 0;
+      long bracket = 0;
+      for (int j = 0; j < end; ++j) {
+        int b = a == null ? bs.get(i + j) : a[shift + i + j];
+        if (b == '"') {
+          quote |= 1L << j;
+        } else if (b == '\\') {
+          backslash |= 1L << j;
+        } else if ((b | 0x20) == '{' || (b | 0x20) == '}') {
+          // '[' and ']' are '{' and '}' without bit 0x20.
+          bracket |= 1L << j;
+        }
+      }
+      block(quote, backslash, bracket, i);
+    }
+  }
+
+  // Computes 'match'. 'tx' is the indexed text.
+  void link (CharSequence tx) {
+    if (prevInString != 0) {
+      throw new IllegalArgumentException("Unexpected end of string");
+    }
+    match = new int[n];
+    int[] stack = new int[32];
+    int depth = 0;
+    for (int k = 0; k < n; ++k) {
+      char ch = tx.charAt(pos[k]);
+      if (ch == '"') {
+        match[k] = k + 1;
+        ++k;
+      } else if (ch == '[' || ch == '{') {
+        if (depth == stack.length) {
+          stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = k;
+      } else {
+        char open = ch == ']' ? '[' : '{';
+        if (depth == 0 || tx.charAt(pos[stack[depth - 1]]) != open) {
+          throw new IllegalArgumentException(
+            "Unexpected '" + ch + "' at " + pos[k]
+          );
+        }
+        match[stack[--depth]] = k;
+      }
+    }
+    if (depth != 0) {
+      throw new IllegalArgumentException(
+        "Unclosed '" + tx.charAt(pos[stack[depth - 1]]) + "' at " +
+        pos[stack[depth - 1]]
+      );
+    }
+  }
+
+  // Returns the position of the closing element of the quote, bracket or
+  // brace at 'ix' or -1 if it is not indexed.
+  int close (int ix) {
+    int k = Arrays.binarySearch(pos, 0, n, ix);
+    return k < 0 ? -1 : pos[match[k]];
+  }
+
+  // Makes the index of the segment [start, end) of 'tx'.
+  static JsIndex of (CharSequence tx, int start, int end) {
+    JsIndex r;
+    ByteBuffer bs;
+    int from;
+    if (tx instanceof Utf8) {
+      r = new JsIndex(0);
+      bs = ((Utf8)tx).bs;
+      from = start;
+    } else {
+      // One byte for each UTF-16 unit, so that positions are the same.
+      // Units out of ASCII are changed by 0, which is not indexed.
+      r = new JsIndex(start);
+      byte[] a = new byte[end - start];
+      for (int i = 0; i < a.length; ++i) {
+        char ch = tx.charAt(start + i);
+        a[i] = ch < 128 ? (byte)ch : 0;
+      }
+      bs = ByteBuffer.wrap(a);
+      from = 0;
+    }
+    int to = from + end - start;
+
+    if (VECTOR != null) {
+      try {
+        VECTOR.invokeExact(r, bs, from, to);
+      } catch (Throwable e) {
+        throw new IllegalStateException(e);
+      }
+    } else {
+      r.masks(bs, from, to);
+    }
+    r.link(tx);
+    return r;
+  }
+}
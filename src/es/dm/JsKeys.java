@@ -0,0 +1,145 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+// Table of object keys, which makes repeated keys to share the same String.
+// Keys are searched by the hash of their characters in the JSON text, so
+// keys which are already in the table are not decoded and do not allocate.
+// Keys with escapes or, in UTF-8 texts, with non ASCII characters are
+// decoded before being searched.
+// The hash is the one of String, so keys can be searched by String too.
+final class JsKeys {
+  // Longer keys are not kept.
+  static final int MAX_LENGTH = 64;
+  // Table shared by every reading if 'global' is true.
+  static final JsKeys GLOBAL = new JsKeys(4096, true);
+  static volatile boolean global = false;
+
+  // Open addressing table of keys.
+  String[] table;
+  int n = 0;
+  // Maximum number of keys. After it is reached, new keys are not kept.
+  final int max;
+  // If it is true, 'table' does not grow and keys are added in
+  // synchronized blocks. It is read without lock, which is safe because
+  // Strings are immutable: a key not seen yet is searched again when it is
+  // added.
+  final boolean shared;
+
+  JsKeys (int max, boolean shared) {
+    this.max = max;
+    this.shared = shared;
+    table = new String[shared ? max * 2 : 16];
+  }
+
+  // Returns the table for a new reading.
+  static JsKeys of () {
+    return global ? GLOBAL : new JsKeys(4096, false);
+  }
+
+  static int slot (int hash, int mask) {
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  // Returns the key equals to the segment [start, end) of 'tx' or null.
+  static String find (
+    String[] table, int hash, CharSequence tx, int start, int end
+  ) {
+    int mask = table.length - 1;
+    int n = end - start;
+    for (int k = slot(hash, mask);; k = (k + 1) & mask) {
+      String s = table[k];
+      if (s == null) {
+        return null;
+      }
+      if (s.hashCode() == hash && s.length() == n) {
+        int i = 0;
+        while (i < n && s.charAt(i) == tx.charAt(start + i)) {
+          ++i;
+        }
+        if (i == n) {
+          return s;
+        }
+      }
+    }
+  }
+
+  // Adds 'key' to 'table' without checking if it is there.
+  static void put (String[] table, String key) {
+    int mask = table.length - 1;
+    int k = slot(key.hashCode(), mask);
+    while (table[k] != null) {
+      k = (k + 1) & mask;
+    }
+    table[k] = key;
+  }
+
+  // Returns the key equals to 'key', adding it if it is not in the table
+  // and there is room.
+  String intern (String key) {
+    if (key.length() > MAX_LENGTH) {
+      return key;
+    }
+    int hash = key.hashCode();
+    String r = find(table, hash, key, 0, key.length());
+    if (r != null) {
+      return r;
+    }
+    if (shared) {
+      synchronized (this) {
+        r = find(table, hash, key, 0, key.length());
+        if (r != null) {
+          return r;
+        }
+        if (n < max) {
+          put(table, key);
+          ++n;
+        }
+      }
+      return key;
+    }
+
+    if (n == max) {
+      return key;
+    }
+    if ((n + 1) * 2 > table.length) {
+      String[] t = new String[table.length * 2];
+      for (String s : table) {
+        if (s != null) {
+          put(t, s);
+        }
+      }
+      table = t;
+    }
+    put(table, key);
+    ++n;
+    return key;
+  }
+
+  // Starts at '"' of an object key and ends after its closing '"'.
+  String rKey (Js js) {
+    CharSequence tx = js.tx;
+    boolean utf8 = tx instanceof Utf8;
+    int start = js.ix + 1;
+    int end = Math.min(js.end, start + MAX_LENGTH + 1);
+    int hash = 0;
+    int i = start;
+    for (; i < end; ++i) {
+      char ch = tx.charAt(i);
+      if (ch == '"') {
+        String r = find(table, hash, tx, start, i);
+        if (r != null) {
+          js.ix = i + 1;
+          return r;
+        }
+        break;
+      }
+      if (ch == '\\' || (ch > 127 && utf8)) {
+        break;
+      }
+      hash = 31 * hash + ch;
+    }
+    return intern(js.rStringValue());
+  }
+}
@@ -0,0 +1,231 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * JSON Lines (NDJSON) files: one JSON value for each line.<p>
+ * Files are read with 'read', which can be processed in parallel. For
+ * example:<pre>
+ *   long n = JsLines.read(path).parallel()
+ *     .filter(js -&gt; js.rObject().get("level").rString().equals("error"))
+ *     .count();
+ * </pre>
+ * Values are written with an appender, which sends them to the file in
+ * batches. For example:<pre>
+ *   try (JsLines lines = new JsLines(path)) {
+ *     for (Event e : events) {
+ *       lines.add(Event.CODEC, e);
+ *     }
+ *   }
+ * </pre>
+ * An appender must be used from only one thread.
+ */
+public class JsLines implements Closeable {
+  static final int BATCH_SIZE = 65536;
+  // Minimum number of bytes of a split.
+  static final int MIN_SPLIT = 4096;
+
+  // Spliterator of the lines [pos, end) of 'tx'. Blank lines are skipped.
+  static class Lines implements Spliterator<Js> {
+    CharSequence tx;
+    int pos;
+    int end;
+
+    Lines (CharSequence tx, int pos, int end) {
+      this.tx = tx;
+      this.pos = pos;
+      this.end = end;
+    }
+
+    // Returns the position of the next '\n' or 'end'.
+    int eol (int ix) {
+      while (ix < end && tx.charAt(ix) != '\n') {
+        ++ix;
+      }
+      return ix;
+    }
+
+    @Override
+    public boolean tryAdvance (Consumer<? super Js> action) {
+      while (pos < end) {
+        int begin = pos;
+        int eol = eol(pos);
+        pos = eol + 1;
+        for (int i = begin; i < eol; ++i) {
+          if (tx.charAt(i) > ' ') {
+            action.accept(new Js(tx, begin, eol));
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Spliterator<Js> trySplit () {
+      if (end - pos < MIN_SPLIT * 2) {
+        return null;
+      }
+      int mid = eol(pos + (end - pos) / 2) + 1;
+      if (mid >= end) {
+        return null;
+      }
+      Lines r = new Lines(tx, pos, mid);
+      pos = mid;
+      return r;
+    }
+
+    @Override
+    public long estimateSize () {
+      return (end - pos) / 64 + 1;
+    }
+
+    @Override
+    public int characteristics () {
+      return ORDERED | NONNULL | IMMUTABLE;
+    }
+  }
+
+  String path;
+  StringBuilder sb = new StringBuilder(BATCH_SIZE + BATCH_SIZE / 4);
+  // Opened in the first 'flush' which has values to write.
+  OutputStream out;
+
+  /**
+   * Makes an appender of JSON values to 'path'. If 'path' does not exist,
+   * it is created when the first batch is written. The file is kept open
+   * until 'close'.
+   * @param path File path
+   */
+  public JsLines (String path) {
+    this.path = path;
+  }
+
+  /**
+   * Returns the values of a JSON Lines file.<p>
+   * The file is mapped in memory like in Js.ofFile, and each value is a
+   * view of a line, which is decoded only when it is read. Blank lines are
+   * skipped.<p>
+   * When the stream runs in parallel, the file is split by byte ranges
+   * cut at line ends, so each thread only reads its own part.
+   * @param path File path. Its size must be less than 2 GB.
+   * @return The values of 'path', in the order they are in the file.
+   * @throws IOException If 'path' can not be mapped.
+   */
+  public static Stream<Js> read (String path) throws IOException {
+    Js js = Js.ofFile(path);
+    return StreamSupport.stream(new Lines(js.tx, js.start, js.end), false);
+  }
+
+  /**
+   * Returns the values of a JSON Lines file decoded with 'codec'.
+   * (See 'read(String)').
+   * @param <T> Type of values
+   * @param path File path. Its size must be less than 2 GB.
+   * @param codec Codec of values
+   * @return The values of 'path', in the order they are in the file.
+   * @throws IOException If 'path' can not be mapped.
+   */
+  public static <T> Stream<T> read (String path, JsCodec<T> codec)
+  throws IOException {
+    return read(path).map(codec::read);
+  }
+
+  // Ends the value appended from 'begin', replacing line ends inside it.
+  // In valid JSON they only can be blanks.
+  JsLines endLine (int begin) {
+    for (int i = begin; i < sb.length(); ++i) {
+      char ch = sb.charAt(i);
+      if (ch == '\n' || ch == '\r') {
+        sb.setCharAt(i, ' ');
+      }
+    }
+    sb.append('\n');
+    if (sb.length() >= BATCH_SIZE) {
+      flush();
+    }
+    return this;
+  }
+
+  /**
+   * Adds a value in a new line. It is written when the batch is full or
+   * in 'flush' or 'close'.
+   * @param value Value
+   * @return This appender.
+   */
+  public JsLines add (Js value) {
+    int begin = sb.length();
+    value.appendTo(sb);
+    return endLine(begin);
+  }
+
+  /**
+   * Adds a value codified with 'codec' in a new line. It is written when
+   * the batch is full or in 'flush' or 'close'.
+   * @param <T> Type of value
+   * @param codec Codec of 'value'
+   * @param value Value
+   * @return This appender.
+   */
+  public <T> JsLines add (JsCodec<T> codec, T value) {
+    int begin = sb.length();
+    codec.append(sb, value);
+    return endLine(begin);
+  }
+
+  /**
+   * Writes values added and not written yet. If it fails, they are kept to
+   * be written in the next call.
+   * @throws UncheckedIOException If 'path' can not be opened or written.
+   */
+  public void flush () {
+    if (sb.length() == 0) {
+      return;
+    }
+    try {
+      if (out == null) {
+        out = new FileOutputStream(path, true);
+      }
+      out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    sb.setLength(0);
+  }
+
+  /**
+   * Writes values added and not written yet and closes the file. The file
+   * is closed even if writing fails.
+   * @throws UncheckedIOException If 'path' can not be opened, written or
+   *   closed.
+   */
+  @Override
+  public void close () {
+    try {
+      flush();
+    } finally {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        } finally {
+          out = null;
+        }
+      }
+    }
+  }
+}
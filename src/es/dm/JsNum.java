@@ -0,0 +1,429 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.math.BigInteger;
+
+// Decoder and encoder of JSON numbers.
+// Digits are accumulated while the number is checked, so no temporary
+// String is made. Doubles are computed with the Clinger fast path or with
+// the Eisel-Lemire algorithm (Daniel Lemire, "Number Parsing at a Gigabyte
+// per Second", 2021). Only in the few cases which these can not solve
+// (more than 19 significant digits, subnormals, exact halfway products)
+// Double.parseDouble is used.
+// Doubles are written with the Schubfach algorithm (Raffaello Giulietti,
+// "The Schubfach way to render doubles", 2021), which gives the shortest
+// decimal that reads back to the same double.
+final class JsNum {
+  static final int MIN_POW = -342;
+  static final int MAX_POW = 308;
+  // 128 bits truncated (q >= 0) or rounded up (q < 0) approximations of
+  // 5^q, normalized so that their most significant bit is 1.
+  static final long[] POW5_HI = new long[MAX_POW - MIN_POW + 1];
+  static final long[] POW5_LO = new long[MAX_POW - MIN_POW + 1];
+  static final double[] POW10 = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  static {
+    BigInteger five = BigInteger.valueOf(5);
+    BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+    for (int q = MIN_POW; q <= MAX_POW; ++q) {
+      BigInteger c;
+      if (q < 0) {
+        BigInteger p5 = five.pow(-q);
+        int z = p5.bitLength();
+        int b = q >= -27 ? z + 127 : 2 * z + 128;
+        c = BigInteger.ONE.shiftLeft(b).divide(p5).add(BigInteger.ONE);
+        while (c.compareTo(two128) >= 0) {
+          c = c.shiftRight(1);
+        }
+      } else {
+        c = five.pow(q);
+        int bits = c.bitLength();
+        c = bits < 128 ? c.shiftLeft(128 - bits) : c.shiftRight(bits - 128);
+      }
+      POW5_HI[q - MIN_POW] = c.shiftRight(64).longValue();
+      POW5_LO[q - MIN_POW] = c.longValue();
+    }
+  }
+
+  CharSequence tx;
+  int start;
+  int end;
+  boolean negative;
+  // First 19 significant digits, as an unsigned long.
+  long digits;
+  int ndigits;
+  // Value is 'digits * 10^exp10' (plus dropped digits if 'many').
+  int exp10;
+  // There are not fraction nor exponent.
+  boolean integral;
+  // There are more than 19 significant digits and some of them was dropped.
+  boolean many;
+
+  void add (char ch, boolean fraction) {
+    int d = ch - '0';
+    if (ndigits < 19) {
+      if (ndigits > 0 || d != 0) {
+        digits = digits * 10 + d;
+        ++ndigits;
+      }
+      if (fraction) {
+        --exp10;
+      }
+    } else {
+      if (d != 0) {
+        many = true;
+      }
+      if (!fraction) {
+        ++exp10;
+      }
+    }
+  }
+
+  static boolean isDigit (char ch) {
+    return ch >= '0' && ch <= '9';
+  }
+
+  // Reads the number which starts at 'tx[ix]'. Returns the position after
+  // it or, if it is not valid, '-1 - position of the wrong character'.
+  int read (CharSequence tx, int ix, int len) {
+    this.tx = tx;
+    start = ix;
+    negative = false;
+    digits = 0;
+    ndigits = 0;
+    exp10 = 0;
+    integral = true;
+    many = false;
+
+    char ch = ix < len ? tx.charAt(ix) : '\0';
+    if (ch == '-') {
+      negative = true;
+      ch = ++ix < len ? tx.charAt(ix) : '\0';
+    }
+    if (ch == '0') {
+      ch = ++ix < len ? tx.charAt(ix) : '\0';
+    } else if (ch >= '1' && ch <= '9') {
+      while (isDigit(ch)) {
+        add(ch, false);
+        ch = ++ix < len ? tx.charAt(ix) : '\0';
+      }
+    } else {
+      return -1 - ix;
+    }
+
+    if (ch == '.') {
+      integral = false;
+      ch = ++ix < len ? tx.charAt(ix) : '\0';
+      if (!isDigit(ch)) {
+        return -1 - ix;
+      }
+      while (isDigit(ch)) {
+        add(ch, true);
+        ch = ++ix < len ? tx.charAt(ix) : '\0';
+      }
+    }
+
+    if (ch == 'e' || ch == 'E') {
+      integral = false;
+      ch = ++ix < len ? tx.charAt(ix) : '\0';
+      boolean negExp = false;
+      if (ch == '+' || ch == '-') {
+        negExp = ch == '-';
+        ch = ++ix < len ? tx.charAt(ix) : '\0';
+      }
+      if (!isDigit(ch)) {
+        return -1 - ix;
+      }
+      int e = 0;
+      while (isDigit(ch)) {
+        if (e < 100000) {
+          e = e * 10 + ch - '0';
+        }
+        ch = ++ix < len ? tx.charAt(ix) : '\0';
+      }
+      exp10 += negExp ? -e : e;
+    }
+
+    end = ix;
+    return ix;
+  }
+
+  // Returns true if the number read is an integer in the range of long.
+  boolean isLong () {
+    return integral && exp10 == 0 && Long.compareUnsigned(
+      digits, negative ? Long.MIN_VALUE : Long.MAX_VALUE
+    ) <= 0;
+  }
+
+  // Returns the number read. It must be 'isLong'.
+  long toLong () {
+    return negative ? -digits : digits;
+  }
+
+  static long mulHigh (long a, long b) {
+    return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+  }
+
+  // Returns the bits of 'w * 10^q' or -1 if they can not be computed
+  // exactly. 'w' must be greater than 0.
+  static long lemire (long w, int q) {
+    if (q < MIN_POW || q > MAX_POW) {
+      return -1;
+    }
+    long factorHi = POW5_HI[q - MIN_POW];
+    int lz = Long.numberOfLeadingZeros(w);
+    w <<= lz;
+
+    long lower = w * factorHi;
+    long upper = mulHigh(w, factorHi);
+    if ((upper & 0x1FF) == 0x1FF &&
+      Long.compareUnsigned(lower + w, lower) < 0
+    ) {
+      long factorLo = POW5_LO[q - MIN_POW];
+      long productLow = w * factorLo;
+      long productMiddle = lower + mulHigh(w, factorLo);
+      if (Long.compareUnsigned(productMiddle, lower) < 0) {
+        ++upper;
+      }
+      if (productMiddle + 1 == 0 && (upper & 0x1FF) == 0x1FF &&
+        Long.compareUnsigned(productLow + w, productLow) < 0
+      ) {
+        return -1;
+      }
+      lower = productMiddle;
+    }
+
+    int upperBit = (int)(upper >>> 63);
+    long mantissa = upper >>> (upperBit + 9);
+    lz += 1 ^ upperBit;
+
+    if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+      return -1;
+    }
+
+    mantissa += mantissa & 1;
+    mantissa >>>= 1;
+    if (mantissa >= (1L << 53)) {
+      mantissa = 1L << 52;
+      --lz;
+    }
+    mantissa &= ~(1L << 52);
+
+    long exponent = (((152170 + 65536) * q) >> 16) + 1024 + 63 - lz;
+    if (exponent < 1 || exponent > 2046) {
+      return -1;
+    }
+    return mantissa | (exponent << 52);
+  }
+
+  // Returns the number read.
+  double toDouble () {
+    if (digits == 0 && !many) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (!many) {
+      if (exp10 >= -22 && exp10 <= 22 && digits <= (1L << 53) && digits > 0) {
+        double d = digits;
+        d = exp10 < 0 ? d / POW10[-exp10] : d * POW10[exp10];
+        return negative ? -d : d;
+      }
+      long bits = lemire(digits, exp10);
+      if (bits != -1) {
+        return Double.longBitsToDouble(bits | (negative ? Long.MIN_VALUE : 0));
+      }
+    }
+    return Double.parseDouble(tx.subSequence(start, end).toString());
+  }
+
+  // Encoder -----------------------------------------------------------------
+
+  static final int Q_MIN = -1074;
+  static final long C_MIN = 1L << 52;
+  static final long T_MASK = C_MIN - 1;
+  static final long MASK_63 = Long.MAX_VALUE;
+  static final int K_MIN = -324;
+  static final int K_MAX = 292;
+  // Pairs (g1, g0) of the 126 bits approximation 'g' of 10^-k, with
+  // 'g = floor(10^-k * 2^r) + 1' and '2^125 <= g < 2^126'.
+  static final long[] G = new long[(K_MAX - K_MIN + 1) * 2];
+
+  static {
+    for (int k = K_MIN; k <= K_MAX; ++k) {
+      BigInteger b;
+      if (k <= 0) {
+        BigInteger n = BigInteger.TEN.pow(-k);
+        int bits = n.bitLength();
+        b = bits > 126 ? n.shiftRight(bits - 126) : n.shiftLeft(126 - bits);
+      } else {
+        BigInteger d = BigInteger.TEN.pow(k);
+        b = BigInteger.ONE.shiftLeft(125 + d.bitLength()).divide(d);
+      }
+      BigInteger g = b.add(BigInteger.ONE);
+      G[(k - K_MIN) * 2] = g.shiftRight(63).longValue();
+      G[(k - K_MIN) * 2 + 1] = g.longValue() & MASK_63;
+    }
+  }
+
+  static int flog10pow2 (int q) {
+    return (int)(q * 661_971_961_083L >> 41);
+  }
+
+  static int flog10threeQuartersPow2 (int q) {
+    return (int)(q * 661_971_961_083L - 274_743_187_321L >> 41);
+  }
+
+  static int flog2pow10 (int q) {
+    return (int)(q * 913_124_641_741L >> 38);
+  }
+
+  static long rop (long g1, long g0, long cp) {
+    long x1 = Math.multiplyHigh(g0, cp);
+    long y0 = g1 * cp;
+    long y1 = Math.multiplyHigh(g1, cp);
+    long z = (y0 >>> 1) + x1;
+    long vbp = y1 + (z >>> 63);
+    return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+  }
+
+  // Appends the shortest decimal of 'c * 2^q' to 'sb'.
+  static void append (StringBuilder sb, int q, long c, int dk) {
+    int out = (int)c & 1;
+    long cb = c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != C_MIN || q == Q_MIN) {
+      cbl = cb - 2;
+      k = flog10pow2(q);
+    } else {
+      cbl = cb - 1;
+      k = flog10threeQuartersPow2(q);
+    }
+    int h = q + flog2pow10(-k) + 2;
+
+    long g1 = G[(k - K_MIN) * 2];
+    long g0 = G[(k - K_MIN) * 2 + 1];
+
+    long vb = rop(g1, g0, cb << h);
+    long vbl = rop(g1, g0, cbl << h);
+    long vbr = rop(g1, g0, cbr << h);
+
+    long s = vb >> 2;
+    if (s >= 100) {
+      long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+      long tp10 = sp10 + 10;
+      boolean upin = vbl + out <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + out <= vbr;
+      if (upin != wpin) {
+        append(sb, upin ? sp10 : tp10, k);
+        return;
+      }
+    }
+
+    long t = s + 1;
+    boolean uin = vbl + out <= s << 2;
+    boolean win = (t << 2) + out <= vbr;
+    if (uin != win) {
+      append(sb, uin ? s : t, k + dk);
+      return;
+    }
+    long cmp = vb - (s + t << 1);
+    append(sb, cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+  }
+
+  // Appends the 'len' digits of 'f' to 'sb', with a point after the first
+  // 'point' digits if 'point < len'.
+  static void digits (StringBuilder sb, long f, int len, int point) {
+    int p = sb.length();
+    sb.setLength(p + len + (point < len ? 1 : 0));
+    for (int i = len - 1; i >= 0; --i) {
+      sb.setCharAt(p + i + (i >= point ? 1 : 0), (char)('0' + f % 10));
+      f /= 10;
+    }
+    if (point < len) {
+      sb.setCharAt(p + point, '.');
+    }
+  }
+
+  static void zeros (StringBuilder sb, int n) {
+    for (int i = 0; i < n; ++i) {
+      sb.append('0');
+    }
+  }
+
+  // Appends 'f * 10^e' to 'sb' in the format of Double.toString. 'f' must
+  // be greater than 0.
+  static void append (StringBuilder sb, long f, int e) {
+    while (f % 10 == 0) {
+      f /= 10;
+      ++e;
+    }
+    int len = 1;
+    for (long n = f / 10; n != 0; n /= 10) {
+      ++len;
+    }
+    int exp = e + len - 1;
+
+    if (exp >= 0 && exp < 7) {
+      if (len <= exp + 1) {
+        digits(sb, f, len, len);
+        zeros(sb, exp + 1 - len);
+        sb.append(".0");
+      } else {
+        digits(sb, f, len, exp + 1);
+      }
+    } else if (exp < 0 && exp >= -3) {
+      sb.append("0.");
+      zeros(sb, -exp - 1);
+      digits(sb, f, len, len);
+    } else {
+      if (len == 1) {
+        digits(sb, f, 1, 1);
+        sb.append(".0");
+      } else {
+        digits(sb, f, len, 1);
+      }
+      sb.append('E').append(exp);
+    }
+  }
+
+  // Appends 'v' to 'sb' with the shortest decimal which is read back as
+  // 'v'. The format is the one of Double.toString.
+  static void append (StringBuilder sb, double v) {
+    long bits = Double.doubleToRawLongBits(v);
+    long t = bits & T_MASK;
+    int bq = (int)(bits >>> 52) & 0x7FF;
+    if (bq == 0x7FF) {
+      sb.append(v);
+      return;
+    }
+    if (bits < 0) {
+      sb.append('-');
+    }
+    if (bq != 0) {
+      int mq = -Q_MIN + 1 - bq;
+      long c = C_MIN | t;
+      if (0 < mq && mq < 53) {
+        long f = c >> mq;
+        if (f << mq == c) {
+          append(sb, f, 0);
+          return;
+        }
+      }
+      append(sb, -mq, c, 0);
+    } else if (t != 0) {
+      if (t < 3) {
+        append(sb, Q_MIN, 10 * t, -1);
+      } else {
+        append(sb, Q_MIN, t, 0);
+      }
+    } else {
+      sb.append("0.0");
+    }
+  }
+}
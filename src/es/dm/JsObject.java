@@ -0,0 +1,327 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Object value read by Js.rObjectCompact and Js.rArrayCompact.<p>
+ * It is an immutable Map which keeps its entries in the order they are in
+ * the JSON text. Instead of a HashMap with an entry and a Js for each key,
+ * it only keeps the positions of its values in the text and a 'shape' with
+ * its keys, which is shared by the objects read in the same call with the
+ * same keys in the same order. Values are made when they are requested.<p>
+ * Methods which modify the map throw UnsupportedOperationException.
+ */
+public final class JsObject extends AbstractMap<String, Js> {
+  // Shapes with more keys use a hash table.
+  static final int LINEAR = 8;
+  // Shapes with more keys are not shared.
+  static final int MAX_KEYS = 64;
+  // Maximum number of transitions of a shape.
+  static final int MAX_NEXTS = 16;
+
+  // Keys of objects and transitions from them to the shapes with one key
+  // more. Keys do not change. Transitions only change while objects are
+  // being read.
+  static final class Shape {
+    final String[] keys;
+    // Indices + 1 of 'keys' by hash or null if there are LINEAR keys or
+    // less.
+    final int[] table;
+    // Transitions: Key read, shape reached and index of its value.
+    String[] nextKeys = new String[2];
+    Shape[] nexts = new Shape[2];
+    int[] slots = new int[2];
+    int nNexts = 0;
+
+    Shape (String[] keys) {
+      this.keys = keys;
+      if (keys.length <= LINEAR) {
+        table = null;
+      } else {
+        table = new int[Integer.highestOneBit(keys.length) * 4];
+        int mask = table.length - 1;
+        for (int i = 0; i < keys.length; ++i) {
+          int h = keys[i].hashCode() & mask;
+          while (table[h] != 0) {
+            h = (h + 1) & mask;
+          }
+          table[h] = i + 1;
+        }
+      }
+    }
+
+    // Returns the index of 'key' or -1.
+    int index (Object key) {
+      if (table == null) {
+        for (int i = 0; i < keys.length; ++i) {
+          if (keys[i] == key || keys[i].equals(key)) {
+            return i;
+          }
+        }
+        return -1;
+      }
+      if (!(key instanceof String)) {
+        return -1;
+      }
+      int mask = table.length - 1;
+      int h = key.hashCode() & mask;
+      for (;;) {
+        int i = table[h] - 1;
+        if (i == -1) {
+          return -1;
+        }
+        if (keys[i].equals(key)) {
+          return i;
+        }
+        h = (h + 1) & mask;
+      }
+    }
+
+    // Starts at '"' of a key. If it matches the key of a transition, ends
+    // after the key and returns the transition. Otherwise returns -1.
+    int rNext (Js js) {
+      for (int t = 0; t < nNexts; ++t) {
+        int end = js.rawKeyEnd(nextKeys[t]);
+        if (end != -1) {
+          js.ix = end;
+          return t;
+        }
+      }
+      return -1;
+    }
+
+    // Returns the transition of 'key', making it if it does not exist.
+    // Returns -1 if the shape can not grow more.
+    int next (String key) {
+      for (int t = 0; t < nNexts; ++t) {
+        if (nextKeys[t].equals(key)) {
+          return t;
+        }
+      }
+      if (nNexts == MAX_NEXTS || keys.length == MAX_KEYS) {
+        return -1;
+      }
+
+      if (nNexts == nextKeys.length) {
+        nextKeys = Arrays.copyOf(nextKeys, nNexts * 2);
+        nexts = Arrays.copyOf(nexts, nNexts * 2);
+        slots = Arrays.copyOf(slots, nNexts * 2);
+      }
+      nextKeys[nNexts] = key;
+      int slot = index(key);
+      if (slot == -1) {
+        // Repeated keys keep their shape and replace the previous value.
+        String[] ks = Arrays.copyOf(keys, keys.length + 1);
+        ks[keys.length] = key;
+        slot = keys.length;
+        nexts[nNexts] = new Shape(ks);
+      } else {
+        nexts[nNexts] = this;
+      }
+      slots[nNexts] = slot;
+      return nNexts++;
+    }
+  }
+
+  // Context of a reading. It keeps the shapes and keys of the objects read.
+  static final class Reader {
+    final Shape root = new Shape(new String[0]);
+    final JsKeys keys = JsKeys.of();
+
+    // Starts at the first character of a value and ends after it + BLANKS.
+    // Returns the value of arrays and objects or null for the other
+    // values, which are only checked.
+    Object rValue (Js js) {
+      char ch = js.tx.charAt(js.ix);
+      if (ch == '[') {
+        return rArray(js);
+      }
+      if (ch == '{') {
+        return rObject(js);
+      }
+      js.rScalarValue();
+      return null;
+    }
+
+    // Starts at '[' and ends after ']' + BLANKS
+    ArrayList<Js> rArray (Js js) {
+      ArrayList<Js> a = new ArrayList<>();
+      if (js.rFirst(']')) {
+        do {
+          int begin = js.ix;
+          Object v = rValue(js);
+          a.add(js.view(begin, js.ix, v));
+        } while (js.rNext(']'));
+      }
+      return a;
+    }
+
+    // Adds 'key' to the keys of an object which does not share its shape, if
+    // it is not already there, and returns its index.
+    static int add (
+      ArrayList<String> keys, HashMap<String, Integer> index, String key
+    ) {
+      Integer i = index.get(key);
+      if (i != null) {
+        return i;
+      }
+      index.put(key, keys.size());
+      keys.add(key);
+      return keys.size() - 1;
+    }
+
+    // Starts at '{' and ends after '}' + BLANKS
+    JsObject rObject (Js js) {
+      Shape shape = root;
+      // Keys and their indices if the object does not share its shape.
+      ArrayList<String> own = null;
+      HashMap<String, Integer> ownIndex = null;
+      int n = 0;
+      int[] bounds = new int[16];
+      Object[] values = null;
+
+      if (js.rFirst('}')) {
+        do {
+          if (js.tx.charAt(js.ix) != '"') {
+            js.exc("Expected '\"'");
+          }
+          int slot;
+          if (own == null) {
+            String key = null;
+            int t = shape.rNext(js);
+            if (t == -1) {
+              key = keys.rKey(js);
+              t = shape.next(key);
+            }
+            if (t == -1) {
+              own = new ArrayList<>(Arrays.asList(shape.keys));
+              ownIndex = new HashMap<>();
+              for (int i = 0; i < n; ++i) {
+                ownIndex.put(own.get(i), i);
+              }
+              slot = add(own, ownIndex, key);
+              n = own.size();
+            } else {
+              slot = shape.slots[t];
+              shape = shape.nexts[t];
+              n = shape.keys.length;
+            }
+          } else {
+            slot = add(own, ownIndex, keys.rKey(js));
+            n = own.size();
+          }
+          js.rColon();
+
+          if (slot * 2 + 2 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+          }
+          int begin = js.ix;
+          Object v = rValue(js);
+          bounds[slot * 2] = begin;
+          bounds[slot * 2 + 1] = js.ix;
+          if (v != null) {
+            if (values == null) {
+              values = new Object[Math.max(n, 4)];
+            } else if (slot >= values.length) {
+              values = Arrays.copyOf(values, Math.max(n, values.length * 2));
+            }
+            values[slot] = v;
+          } else if (values != null && slot < values.length) {
+            values[slot] = null;
+          }
+        } while (js.rNext('}'));
+      }
+
+      if (own != null) {
+        shape = new Shape(own.toArray(new String[n]));
+      }
+      return new JsObject(
+        js, shape, Arrays.copyOf(bounds, n * 2),
+        values == null ? null : Arrays.copyOf(values, n)
+      );
+    }
+  }
+
+  // Source of values.
+  final Js src;
+  final Shape shape;
+  // Segments [start, end) of 'src' with the values.
+  final int[] bounds;
+  // Values of arrays and objects already decoded or null if there is no
+  // one.
+  final Object[] values;
+
+  JsObject (Js src, Shape shape, int[] bounds, Object[] values) {
+    this.src = src;
+    this.shape = shape;
+    this.bounds = bounds;
+    this.values = values;
+  }
+
+  // Returns the value of the entry 'i'.
+  Js value (int i) {
+    return src.view(
+      bounds[i * 2], bounds[i * 2 + 1], values == null ? null : values[i]
+    );
+  }
+
+  @Override
+  public int size () {
+    return shape.keys.length;
+  }
+
+  @Override
+  public boolean containsKey (Object key) {
+    return shape.index(key) != -1;
+  }
+
+  @Override
+  public Js get (Object key) {
+    int i = shape.index(key);
+    return i == -1 ? null : value(i);
+  }
+
+  @Override
+  public Set<Map.Entry<String, Js>> entrySet () {
+    return new AbstractSet<Map.Entry<String, Js>>() {
+      @Override
+      public int size () {
+        return shape.keys.length;
+      }
+
+      @Override
+      public Iterator<Map.Entry<String, Js>> iterator () {
+        return new Iterator<Map.Entry<String, Js>>() {
+          int i = 0;
+
+          @Override
+          public boolean hasNext () {
+            return i < shape.keys.length;
+          }
+
+          @Override
+          public Map.Entry<String, Js> next () {
+            if (i == shape.keys.length) {
+              throw new NoSuchElementException();
+            }
+            Map.Entry<String, Js> r =
+              new SimpleImmutableEntry<>(shape.keys[i], value(i));
+            ++i;
+            return r;
+          }
+        };
+      }
+    };
+  }
+}
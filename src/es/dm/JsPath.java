@@ -0,0 +1,312 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compiled path to select values of a Js.<p>
+ * A path is a sequence of:
+ * <ul>
+ *   <li>'name' or '.name': Value of the key 'name' of an object. If the
+ *       key is repeated, its last value, as in Js.get.</li>
+ *   <li>'["name"]': The same, with 'name' written as a JSON string.</li>
+ *   <li>'*' or '.*': Every value of an object.</li>
+ *   <li>'[n]': Element 'n' of an array.</li>
+ *   <li>'[*]': Every element of an array.</li>
+ * </ul>
+ * For example: 'a.b[3].c', 'users[*].name', '["a.b"][0]'.<p>
+ * The text is walked only once, skipping without decoding the values which
+ * are not in the path, except values of keys, which are walked after
+ * reading their object until its end. Values which do not match the path
+ * (wrong type, missing key, index out of range) are ignored, but empty
+ * values fail.
+ */
+public class JsPath {
+  static final int KEY = 0;
+  static final int ANY_KEY = 1;
+  static final int INDEX = 2;
+  static final int ANY_INDEX = 3;
+
+  int[] kinds;
+  String[] keys;
+  int[] indexes;
+
+  JsPath (int[] kinds, String[] keys, int[] indexes) {
+    this.kinds = kinds;
+    this.keys = keys;
+    this.indexes = indexes;
+  }
+
+  static IllegalArgumentException exc (String path) {
+    return new IllegalArgumentException("Bad path '" + path + "'");
+  }
+
+  /**
+   * Compiles a path.
+   * @param path Path
+   * @return A compiled path.
+   * @throws IllegalArgumentException If 'path' is not valid.
+   */
+  public static JsPath compile (String path) {
+    ArrayList<Integer> kinds = new ArrayList<>();
+    ArrayList<String> keys = new ArrayList<>();
+    ArrayList<Integer> indexes = new ArrayList<>();
+
+    int ix = 0;
+    int len = path.length();
+    while (ix < len) {
+      char ch = path.charAt(ix);
+      if (ch == '[') {
+        int end;
+        if (ix + 1 < len && path.charAt(ix + 1) == '"') {
+          Js cursor = new Js(path);
+          cursor.ix = ix + 1;
+          String key;
+          try {
+            key = cursor.rStringValue();
+          } catch (IllegalArgumentException e) {
+            throw exc(path);
+          }
+          end = cursor.ix;
+          if (end == len || path.charAt(end) != ']') {
+            throw exc(path);
+          }
+          kinds.add(KEY);
+          keys.add(key);
+          indexes.add(0);
+        } else {
+          end = path.indexOf(']', ix);
+          if (end == -1) {
+            throw exc(path);
+          }
+          String n = path.substring(ix + 1, end);
+          if (n.equals("*")) {
+            kinds.add(ANY_INDEX);
+            indexes.add(0);
+          } else {
+            kinds.add(INDEX);
+            try {
+              int i = Integer.parseInt(n);
+              if (i < 0) {
+                throw exc(path);
+              }
+              indexes.add(i);
+            } catch (NumberFormatException e) {
+              throw exc(path);
+            }
+          }
+          keys.add(null);
+        }
+        ix = end + 1;
+        continue;
+      }
+
+      if (ch == '.') {
+        if (ix == 0 || ix + 1 == len) {
+          throw exc(path);
+        }
+        ++ix;
+      }
+      int end = ix;
+      while (end < len && path.charAt(end) != '.' && path.charAt(end) != '[') {
+        ++end;
+      }
+      if (end == ix) {
+        throw exc(path);
+      }
+      String name = path.substring(ix, end);
+      kinds.add(name.equals("*") ? ANY_KEY : KEY);
+      keys.add(name);
+      indexes.add(0);
+      ix = end;
+    }
+
+    int n = kinds.size();
+    int[] ks = new int[n];
+    int[] is = new int[n];
+    for (int i = 0; i < n; ++i) {
+      ks[i] = kinds.get(i);
+      is[i] = indexes.get(i);
+    }
+    return new JsPath(ks, keys.toArray(new String[n]), is);
+  }
+
+  // Lazy walk of a Js. Only one cursor is used: it goes forward through the
+  // text, entering the arrays and objects in the path and skipping the
+  // other values, so every character is read only once, except values
+  // selected by a KEY segment, which are skipped and walked again when the
+  // end of their object shows that they are the last one of their key.
+  final class Walker extends Spliterators.AbstractSpliterator<Js> {
+    final Js cursor;
+    // Open containers: Segment of the path which selects their elements,
+    // index of their current element and states (see below).
+    int[] segments = new int[8];
+    int[] counts = new int[8];
+    byte[] states = new byte[8];
+    // For objects selected by a KEY segment: position of the last value of
+    // the key (or -1) and, in state LAST, position after the object.
+    int[] founds = new int[8];
+    int[] ends = new int[8];
+    int depth = 0;
+    boolean started = false;
+
+    // The cursor is at the first element of the container.
+    static final byte FIRST = 0;
+    // The cursor is after the current element + BLANKS.
+    static final byte NEXT = 1;
+    // As NEXT, but the element selected by an INDEX segment was already
+    // found, so the other elements are skipped.
+    static final byte FOUND = 2;
+    // The object was read until its end and the cursor went back to the
+    // last value of the key of a KEY segment, as Js.get does. When that
+    // value is done, the cursor goes to the end of the object.
+    static final byte LAST = 3;
+
+    Walker (Js js) {
+      super(Long.MAX_VALUE, ORDERED | NONNULL | IMMUTABLE);
+      cursor = js.cursor();
+      cursor.blanks();
+      if (cursor.ix == cursor.end) {
+        cursor.exc("Unexpected end of text");
+      }
+    }
+
+    // Starts at the first character of a value and ends after it + BLANKS.
+    // Fails if the value is empty.
+    void skip () {
+      int begin = cursor.ix;
+      cursor.skip();
+      if (cursor.ix == begin) {
+        cursor.exc("Expected a value");
+      }
+    }
+
+    // Starts at the first character of a value selected by the segment
+    // 'n - 1'. Returns the value if it is the last segment. Otherwise
+    // enters the value or skips it if it does not match, returning null.
+    Js enter (int n) {
+      if (n == kinds.length) {
+        int begin = cursor.ix;
+        skip();
+        return cursor.view(begin, cursor.ix);
+      }
+      boolean isObject = kinds[n] == KEY || kinds[n] == ANY_KEY;
+      if (cursor.tx.charAt(cursor.ix) != (isObject ? '{' : '[')) {
+        skip();
+        return null;
+      }
+      if (!cursor.rFirst(isObject ? '}' : ']')) {
+        return null;
+      }
+      if (depth == segments.length) {
+        segments = Arrays.copyOf(segments, depth * 2);
+        counts = Arrays.copyOf(counts, depth * 2);
+        states = Arrays.copyOf(states, depth * 2);
+        founds = Arrays.copyOf(founds, depth * 2);
+        ends = Arrays.copyOf(ends, depth * 2);
+      }
+      segments[depth] = n;
+      counts[depth] = 0;
+      states[depth] = FIRST;
+      founds[depth] = -1;
+      ++depth;
+      return null;
+    }
+
+    @Override
+    public boolean tryAdvance (Consumer<? super Js> action) {
+      if (!started) {
+        started = true;
+        Js r = enter(0);
+        if (r != null) {
+          action.accept(r);
+          return true;
+        }
+      }
+      while (depth > 0) {
+        int top = depth - 1;
+        int n = segments[top];
+        int kind = kinds[n];
+        boolean isObject = kind == KEY || kind == ANY_KEY;
+        char close = isObject ? '}' : ']';
+        if (states[top] == LAST) {
+          cursor.ix = ends[top];
+          --depth;
+          continue;
+        }
+        if (states[top] != FIRST) {
+          if (!cursor.rNext(close)) {
+            if (founds[top] == -1) {
+              --depth;
+              continue;
+            }
+            states[top] = LAST;
+            ends[top] = cursor.ix;
+            cursor.ix = founds[top];
+            Js r = enter(n + 1);
+            if (r != null) {
+              action.accept(r);
+              return true;
+            }
+            continue;
+          }
+          ++counts[top];
+        }
+        if (states[top] == FOUND) {
+          skip();
+          continue;
+        }
+        states[top] = NEXT;
+
+        boolean match = isObject
+          ? cursor.rKey(kind == KEY ? keys[n] : null)
+          : kind == ANY_INDEX || counts[top] == indexes[n]
+        ;
+        if (kind == KEY && match) {
+          founds[top] = cursor.ix;
+        }
+        if (!match || kind == KEY) {
+          skip();
+          continue;
+        }
+        if (kind == INDEX) {
+          states[top] = FOUND;
+        }
+        Js r = enter(n + 1);
+        if (r != null) {
+          action.accept(r);
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Returns the first value of 'js' selected by this path.<p>
+   * The walk stops when it is found.
+   * @param js A Js
+   * @return The value or Optional.empty() if there is no one.
+   */
+  public Optional<Js> first (Js js) {
+    return all(js).findFirst();
+  }
+
+  /**
+   * Returns every value of 'js' selected by this path.<p>
+   * The stream is lazy: the text is walked only while values are requested.
+   * @param js A Js
+   * @return The values, in the order they are in 'js'.
+   */
+  public Stream<Js> all (Js js) {
+    return StreamSupport.stream(new Walker(js), false);
+  }
+}
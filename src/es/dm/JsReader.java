@@ -0,0 +1,814 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Json pull reader.<p>
+ * It reads a JSON text from a stream of characters, returning an event for
+ * each element. Only a buffer of fixed size and the element currently read
+ * are kept in memory, so texts of any size can be processed. For example:
+ * <pre>
+ *   try (JsReader rd = new JsReader(new FileInputStream(path))) {
+ *     JsReader.Event e = rd.next();
+ *     while (e != JsReader.Event.END) {
+ *       if (e == JsReader.Event.KEY &amp;&amp; rd.rString().equals("id")) {
+ *         ...
+ *       }
+ *       e = rd.next();
+ *     }
+ *   }
+ * </pre>
+ * The grammar and error messages are the same as those of Js.<p>
+ * A JsReader can also be made without source, in push mode. Then the text
+ * is given in chunks with 'feed', and 'next' returns NEED_MORE when it
+ * needs more text to complete the next element. The end of text is marked
+ * with 'end'. For example:<pre>
+ *   JsReader rd = new JsReader(1 &lt;&lt; 20);
+ *   // For each chunk received:
+ *   rd.feed(chunk);
+ *   JsReader.Event e = rd.next();
+ *   while (e != JsReader.Event.NEED_MORE) {
+ *     ...
+ *     e = rd.next();
+ *   }
+ *   // When there are not more chunks:
+ *   rd.end();
+ *   ... // Events until END.
+ * </pre>
+ * Only the characters of the elements not read yet are kept. An element
+ * which is not complete is not read again when more text is fed: reading
+ * continues from the point where it stopped.
+ */
+public class JsReader implements Closeable {
+  /** Events returned by 'next' */
+  public enum Event {
+    /** Character '[' */
+    START_ARRAY,
+    /** Character ']' */
+    END_ARRAY,
+    /** Character '{' */
+    START_OBJECT,
+    /** Character '}' */
+    END_OBJECT,
+    /** Object key. Its value is read with 'rString' */
+    KEY,
+    /** String value. Its value is read with 'rString' */
+    STRING,
+    /** Number value. Its value is read with 'rInteger', 'rLong' or 'rDouble' */
+    NUMBER,
+    /** Boolean value. Its value is read with 'rBoolean' */
+    BOOLEAN,
+    /** Null value */
+    NULL,
+    /** End of text */
+    END,
+    /** In push mode, more text is needed to read the next element */
+    NEED_MORE
+  }
+
+  static final int BUFFER_SIZE = 8192;
+
+  // States
+  static final int VALUE = 0;      // A value is expected
+  static final int FIRST = 1;      // First element or end of container
+  static final int NEXT = 2;       // ',' or end of container
+  static final int DONE = 3;       // Root value was read
+  static final int KEY = 4;        // An object key is expected
+  // In the following states, part of the next element is in 'sb'.
+  static final int COLON = 5;      // Key was read and ':' is expected
+  static final int STRING = 6;     // Inside a string value
+  static final int KEY_STRING = 7; // Inside an object key
+  static final int NUMBER = 8;     // Inside a number
+
+  // States of numbers (see 'rNumberValue')
+  static final int N_START = 0;    // '-' or a digit is expected
+  static final int N_MINUS = 1;    // After '-'
+  static final int N_ZERO = 2;     // After an integer part '0'
+  static final int N_INT = 3;      // Inside the integer part
+  static final int N_POINT = 4;    // After '.'
+  static final int N_FRAC = 5;     // Inside the fraction
+  static final int N_E = 6;        // After 'e' or 'E'
+  static final int N_SIGN = 7;     // After the sign of the exponent
+  static final int N_EXP = 8;      // Inside the exponent
+
+  // Signal of end of data in push mode.
+  static class More extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    More () {
+      super(null, null, false, false);
+    }
+  }
+  static final More MORE = new More();
+
+  Reader rd;
+  char[] buf = new char[BUFFER_SIZE];
+  int pos = 0;
+  int lim = 0;
+  // Stack of containers. 'true' for objects.
+  boolean[] stack = new boolean[32];
+  int depth = 0;
+  int state = VALUE;
+  int numState = N_START;
+  String root = "";
+  Event event = null;
+  // Text of keys, strings and numbers.
+  StringBuilder sb = new StringBuilder();
+  JsNum num = new JsNum();
+  boolean bool = false;
+  // Push mode.
+  CharsetDecoder decoder = null;
+  // Bytes of an incomplete UTF-8 sequence of the last feed.
+  ByteBuffer pending = null;
+  int maxBuffer = 0;
+  boolean ended = false;
+
+  /**
+   * @param rd Reader of a JSON text.
+   */
+  public JsReader (Reader rd) {
+    this.rd = rd;
+  }
+
+  /**
+   * @param is Input stream of a JSON text codified in UTF-8.
+   */
+  public JsReader (InputStream is) {
+    this(new InputStreamReader(is, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Makes a reader in push mode.
+   * @param maxBuffer Maximum number of characters fed and not read yet. It
+   *        limits the size of a single element too.
+   */
+  public JsReader (int maxBuffer) {
+    this.maxBuffer = maxBuffer;
+    buf = new char[Math.min(BUFFER_SIZE, maxBuffer)];
+    decoder = StandardCharsets.UTF_8.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    pending = ByteBuffer.allocate(0);
+  }
+
+  // Removes characters already read and makes room for 'n' characters more.
+  void room (int n) {
+    if (decoder == null) {
+      throw new IllegalStateException("Reader is not in push mode");
+    }
+    if (ended) {
+      throw new IllegalStateException("Text already was ended");
+    }
+    int rest = lim - pos;
+    int partial = state >= COLON ? sb.length() : 0;
+    if ((long)rest + partial + n > maxBuffer) {
+      throw new IllegalArgumentException(
+        "Buffer limit (" + maxBuffer + " characters) exceeded"
+      );
+    }
+    if (rest + n > buf.length) {
+      char[] b = new char[(int)Math.min(maxBuffer, Math.max(
+        (long)buf.length * 2, (long)rest + n
+      ))];
+      System.arraycopy(buf, pos, b, 0, rest);
+      buf = b;
+    } else {
+      System.arraycopy(buf, pos, buf, 0, rest);
+    }
+    pos = 0;
+    lim = rest;
+  }
+
+  /**
+   * Adds a chunk of text in push mode.
+   * @param cs Text
+   * @throws IllegalArgumentException If the buffer limit is exceeded.
+   * @throws IllegalStateException If the reader is not in push mode or
+   *         'end' was called.
+   */
+  public void feed (CharSequence cs) {
+    int n = cs.length();
+    room(n);
+    for (int i = 0; i < n; ++i) {
+      buf[lim++] = cs.charAt(i);
+    }
+  }
+
+  /**
+   * Adds a chunk of a text codified in UTF-8 in push mode. The chunk can
+   * finish in the middle of a multibyte character.
+   * @param bs Bytes
+   * @param off Start of the chunk in 'bs'
+   * @param len Length of the chunk
+   * @throws IllegalArgumentException If the buffer limit is exceeded.
+   * @throws IllegalStateException If the reader is not in push mode or
+   *         'end' was called.
+   */
+  public void feed (byte[] bs, int off, int len) {
+    ByteBuffer in = ByteBuffer.wrap(bs, off, len);
+    if (pending.hasRemaining()) {
+      in = ByteBuffer.allocate(pending.remaining() + len)
+        .put(pending).put(in).flip();
+    }
+    room(in.remaining());
+    CharBuffer out = CharBuffer.wrap(buf, lim, buf.length - lim);
+    decoder.decode(in, out, false);
+    lim = out.position();
+    pending = ByteBuffer.allocate(in.remaining()).put(in).flip();
+  }
+
+  /**
+   * The same as 'feed(bs, 0, bs.length)'.
+   * @param bs Bytes
+   */
+  public void feed (byte[] bs) {
+    feed(bs, 0, bs.length);
+  }
+
+  /**
+   * Marks the end of text in push mode.
+   * @throws IllegalStateException If the reader is not in push mode or
+   *         'end' was called.
+   */
+  public void end () {
+    room(pending.remaining());
+    CharBuffer out = CharBuffer.wrap(buf, lim, buf.length - lim);
+    decoder.decode(pending, out, true);
+    decoder.flush(out);
+    lim = out.position();
+    ended = true;
+  }
+
+  void exc (String msg) {
+    int start = Math.max(0, pos - 30);
+    int end = Math.min(lim, pos + 30);
+    throw new IllegalArgumentException(
+      msg + "\n" +
+      (start == 0 ? "" : "...") + new String(buf, start, pos - start) +
+      "_|_" +
+      new String(buf, pos, end - pos) + (end == lim ? "" : "...")
+    );
+  }
+
+  // Returns the next character without consuming it or -1 at end of text.
+  int peek () {
+    if (pos == lim) {
+      if (decoder != null) {
+        if (ended) {
+          return -1;
+        }
+        throw MORE;
+      }
+      try {
+        int n = rd.read(buf, 0, buf.length);
+        pos = 0;
+        lim = n < 0 ? 0 : n;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (lim == 0) {
+        return -1;
+      }
+    }
+    return buf[pos];
+  }
+
+  // Returns and consumes the next character or -1 at end of text.
+  int read () {
+    int ch = peek();
+    if (ch != -1) {
+      ++pos;
+    }
+    return ch;
+  }
+
+  // Skips blanks and returns the next character or -1 at end of text.
+  int blanks () {
+    int ch = peek();
+    while (ch != -1 && ch <= ' ') {
+      ++pos;
+      ch = peek();
+    }
+    return ch;
+  }
+
+  Event push (boolean isObject, Event e) {
+    ++pos;
+    if (depth == stack.length) {
+      boolean[] st = new boolean[depth * 2];
+      System.arraycopy(stack, 0, st, 0, depth);
+      stack = st;
+    }
+    stack[depth++] = isObject;
+    state = FIRST;
+    return e;
+  }
+
+  Event pop (Event e) {
+    ++pos;
+    --depth;
+    return close(e);
+  }
+
+  Event close (Event e) {
+    state = depth == 0 ? DONE : NEXT;
+    return e;
+  }
+
+  // In push mode, if more text is needed, the literal is read again from its
+  // start.
+  void literal (String word, String msg) {
+    int begin = pos;
+    try {
+      for (int i = 0; i < word.length(); ++i) {
+        if (read() != word.charAt(i)) {
+          exc(msg);
+        }
+      }
+    } catch (More e) {
+      pos = begin;
+      throw e;
+    }
+  }
+
+  // Starts after '"' or at the point where a previous call stopped, and
+  // ends after the closing '"'. Characters read are appended to 'sb'. In
+  // push mode, if more text is needed, it stops after the last character
+  // read or before an incomplete escape sequence.
+  void rStringValue () {
+    for (;;) {
+      int ch = read();
+      if (ch == -1) {
+        exc("Unexpected end of string");
+      }
+
+      if (ch == '"') {
+        return;
+      }
+
+      if (ch == '\\') {
+        int begin = pos - 1;
+        try {
+          rEscape();
+        } catch (More e) {
+          pos = begin;
+          throw e;
+        }
+        continue;
+      }
+
+      sb.append((char)ch);
+    }
+  }
+
+  // Starts after '\\' and ends after the escape sequence. Its value is
+  // appended to 'sb'.
+  void rEscape () {
+    int ch = read();
+    if (ch == '"') {
+      sb.append('"');
+    } else if (ch == '\\') {
+      sb.append('\\');
+    } else if (ch == '/') {
+      sb.append('/');
+    } else if (ch == 'b') {
+      sb.append('\b');
+    } else if (ch == 'f') {
+      sb.append('\f');
+    } else if (ch == 'n') {
+      sb.append('\n');
+    } else if (ch == 'r') {
+      sb.append('\r');
+    } else if (ch == 't') {
+      sb.append('\t');
+    } else if (ch == 'u') {
+      int code = 0;
+      for (int i = 0; i < 4; ++i) {
+        ch = read();
+        if (ch == -1 || !Js.isHex((char)ch)) {
+          exc("Expected a four digits hexadecimal value");
+        }
+        code = code * 16 + Js.hexValue((char)ch);
+      }
+      sb.append((char)code);
+    } else {
+      exc("Expected an escape value");
+    }
+  }
+
+  // Starts at the first character of a number, with 'numState' N_START, or
+  // at the point where a previous call stopped, and ends after the number.
+  // Characters read are appended to 'sb'. In push mode, if more text is
+  // needed, it stops after the last character read.
+  void rNumberValue () {
+    for (;;) {
+      int ch = peek();
+      boolean digit = ch >= '0' && ch <= '9';
+      boolean exp = ch == 'e' || ch == 'E';
+      int st;
+      switch (numState) {
+        case N_START:
+          st = ch == '-' ? N_MINUS : ch == '0' ? N_ZERO : digit ? N_INT : -1;
+          break;
+        case N_MINUS:
+          st = ch == '0' ? N_ZERO : digit ? N_INT : -1;
+          break;
+        case N_ZERO:
+        case N_INT:
+          if (digit && numState == N_INT) {
+            st = N_INT;
+          } else if (ch == '.') {
+            st = N_POINT;
+          } else if (exp) {
+            st = N_E;
+          } else {
+            return;
+          }
+          break;
+        case N_POINT:
+          st = digit ? N_FRAC : -1;
+          break;
+        case N_FRAC:
+          if (digit) {
+            st = N_FRAC;
+          } else if (exp) {
+            st = N_E;
+          } else {
+            return;
+          }
+          break;
+        case N_E:
+          st = ch == '+' || ch == '-' ? N_SIGN : digit ? N_EXP : -1;
+          break;
+        case N_SIGN:
+          st = digit ? N_EXP : -1;
+          break;
+        default: // N_EXP
+          if (!digit) {
+            return;
+          }
+          st = N_EXP;
+      }
+      if (st == -1) {
+        exc("Expected a digit");
+      }
+      sb.append(exp ? 'e' : (char)ch);
+      ++pos;
+      numState = st;
+    }
+  }
+
+  // Reads a value or, if it is a string or a number, only its first
+  // character. In the last case returns null and 'state' is set to continue
+  // reading it.
+  Event rValue () {
+    int ch = blanks();
+    if (ch == -1) {
+      if (depth == 0) {
+        exc("Unexpected end of text");
+      }
+      exc(stack[depth - 1]
+        ? "Expected an object value"
+        : "Unexpected end of array"
+      );
+    }
+
+    if (ch == '[') {
+      root = depth == 0 ? "array" : root;
+      return push(false, Event.START_ARRAY);
+    }
+    if (ch == '{') {
+      root = depth == 0 ? "object" : root;
+      return push(true, Event.START_OBJECT);
+    }
+    if (depth == 0) {
+      root = ch == '"' ? "string"
+        : ch == 't' || ch == 'f' ? "boolean"
+        : ch == 'n' ? "null"
+        : "double"
+      ;
+    }
+    if (ch == '"') {
+      ++pos;
+      sb.setLength(0);
+      state = STRING;
+      return null;
+    }
+    if (ch == 't') {
+      literal("true", "Expected true or false");
+      bool = true;
+      return close(Event.BOOLEAN);
+    }
+    if (ch == 'f') {
+      literal("false", "Expected true or false");
+      bool = false;
+      return close(Event.BOOLEAN);
+    }
+    if (ch == 'n') {
+      literal("null", "Expected null");
+      return close(Event.NULL);
+    }
+    sb.setLength(0);
+    numState = N_START;
+    state = NUMBER;
+    return null;
+  }
+
+  // Reads the first character of an object key and sets 'state' to
+  // continue reading it.
+  void rKey () {
+    int ch = blanks();
+    if (ch == -1) {
+      exc("Unexpected end of object");
+    }
+    if (ch != '"') {
+      exc("Expected '\"'");
+    }
+    ++pos;
+    sb.setLength(0);
+    state = KEY_STRING;
+  }
+
+  // Reads ':' after an object key.
+  Event rColon () {
+    int ch = blanks();
+    if (ch == -1) {
+      exc("Unexpected end of object key");
+    }
+    if (ch != ':') {
+      exc("Expected ':'");
+    }
+    ++pos;
+    state = VALUE;
+    return Event.KEY;
+  }
+
+  // Reads ',' or the end of a container. After ',' sets 'state' to read
+  // the next element and returns null.
+  Event rNext () {
+    boolean isObject = stack[depth - 1];
+    int ch = blanks();
+    if (ch == -1) {
+      exc(isObject ? "Unexpected end of object" : "Unexpected end of array");
+    }
+    if (ch == ',') {
+      ++pos;
+      state = isObject ? KEY : VALUE;
+      return null;
+    }
+    if (isObject && ch == '}') {
+      return pop(Event.END_OBJECT);
+    }
+    if (!isObject && ch == ']') {
+      return pop(Event.END_ARRAY);
+    }
+    exc("Expected ','");
+    return null;
+  }
+
+  /**
+   * Reads the next element of the JSON text.
+   * @return The event corresponding to the element read.
+   */
+  public Event next () {
+    try {
+      event = rNextEvent();
+    } catch (More e) {
+      event = Event.NEED_MORE;
+    }
+    return event;
+  }
+
+  // Reads from the current state until an element is completed. Every
+  // character consumed changes 'state' or 'sb', so, in push mode, it can be
+  // called again when more text is fed.
+  Event rNextEvent () {
+    Event e = null;
+    while (e == null) {
+      switch (state) {
+        case VALUE:
+          e = rValue();
+          break;
+        case FIRST: {
+          boolean isObject = stack[depth - 1];
+          int ch = blanks();
+          if (isObject && ch == '}') {
+            e = pop(Event.END_OBJECT);
+          } else if (!isObject && ch == ']') {
+            e = pop(Event.END_ARRAY);
+          } else {
+            state = isObject ? KEY : VALUE;
+          }
+          break;
+        }
+        case NEXT:
+          e = rNext();
+          break;
+        case KEY:
+          rKey();
+          break;
+        case KEY_STRING:
+          rStringValue();
+          state = COLON;
+          break;
+        case COLON:
+          e = rColon();
+          break;
+        case STRING:
+          rStringValue();
+          e = close(Event.STRING);
+          break;
+        case NUMBER:
+          rNumberValue();
+          e = close(Event.NUMBER);
+          break;
+        default: // DONE
+          if (blanks() != -1) {
+            exc("Spare characters reading a " + root + " value");
+          }
+          e = Event.END;
+      }
+    }
+    return e;
+  }
+
+  /**
+   * Returns the last event read or null if 'next' has not been called.
+   * @return The last event read.
+   */
+  public Event event () {
+    return event;
+  }
+
+  /**
+   * Returns the number of containers opened and not closed.
+   * @return Depth of the last element read.
+   */
+  public int depth () {
+    return depth;
+  }
+
+  /**
+   * Reads the value of the last KEY or STRING event.
+   * @return A string.
+   */
+  public String rString () {
+    if (event != Event.KEY && event != Event.STRING) {
+      throw new IllegalStateException("Expected a key or string event");
+    }
+    return sb.toString();
+  }
+
+  JsNum rNumber () {
+    if (event != Event.NUMBER) {
+      throw new IllegalStateException("Expected a number event");
+    }
+    num.read(sb, 0, sb.length());
+    return num;
+  }
+
+  /**
+   * Reads the value of the last NUMBER event.
+   * @return An int.
+   */
+  public int rInteger () {
+    JsNum n = rNumber();
+    if (!n.isLong() ||
+      n.toLong() < Integer.MIN_VALUE || n.toLong() > Integer.MAX_VALUE
+    ) {
+      exc("Expected an int value");
+    }
+    return (int)n.toLong();
+  }
+
+  /**
+   * Reads the value of the last NUMBER event. It is exact in all the range
+   * of long.
+   * @return A long.
+   */
+  public long rLong () {
+    JsNum n = rNumber();
+    if (!n.isLong()) {
+      exc("Expected a long value");
+    }
+    return n.toLong();
+  }
+
+  /**
+   * Reads the value of the last NUMBER event.
+   * @return A double.
+   */
+  public double rDouble () {
+    return rNumber().toDouble();
+  }
+
+  /**
+   * Reads the value of the last BOOLEAN event.
+   * @return A boolean.
+   */
+  public boolean rBoolean () {
+    if (event != Event.BOOLEAN) {
+      throw new IllegalStateException("Expected a boolean event");
+    }
+    return bool;
+  }
+
+  // Like 'next', but in push mode fails if more text is needed.
+  Event nextComplete () {
+    if (next() == Event.NEED_MORE) {
+      throw new IllegalStateException("Value is not complete");
+    }
+    return event;
+  }
+
+  /**
+   * Skips the value which starts with the last event read, without
+   * decoding it. If the last event was KEY, the value of that key is
+   * skipped.<p>
+   * In push mode all the value must have been fed.
+   */
+  public void skip () {
+    if (event == Event.KEY) {
+      nextComplete();
+    }
+    if (event == Event.START_ARRAY || event == Event.START_OBJECT) {
+      int d = depth;
+      while (depth >= d) {
+        nextComplete();
+      }
+    }
+  }
+
+  /**
+   * Reads as Js the value which starts with the last event read. If the last
+   * event was KEY, the value of that key is read.<p>
+   * It is useful to process one by one the elements of a big array.<p>
+   * In push mode all the value must have been fed.
+   * @return The value read.
+   */
+  public Js rJs () {
+    if (event == Event.KEY) {
+      nextComplete();
+    }
+    StringBuilder out = new StringBuilder();
+    append(out);
+    if (event == Event.START_ARRAY || event == Event.START_OBJECT) {
+      int d = depth;
+      Event prev = event;
+      while (depth >= d) {
+        Event e = nextComplete();
+        if (e != Event.END_ARRAY && e != Event.END_OBJECT &&
+          prev != Event.START_ARRAY && prev != Event.START_OBJECT &&
+          prev != Event.KEY
+        ) {
+          out.append(',');
+        }
+        append(out);
+        prev = e;
+      }
+    }
+    return new Js(out.toString());
+  }
+
+  void append (StringBuilder out) {
+    switch (event) {
+      case START_ARRAY: out.append('['); break;
+      case END_ARRAY: out.append(']'); break;
+      case START_OBJECT: out.append('{'); break;
+      case END_OBJECT: out.append('}'); break;
+      case KEY: Js.escape(out, sb.toString()); out.append(':'); break;
+      case STRING: Js.escape(out, sb.toString()); break;
+      case NUMBER: out.append(sb); break;
+      case BOOLEAN: out.append(bool); break;
+      case NULL: out.append("null"); break;
+      default:
+        throw new IllegalStateException("Expected a value event");
+    }
+  }
+
+  /** Closes the underlying reader. In push mode it does nothing. */
+  @Override
+  public void close () {
+    if (rd == null) {
+      return;
+    }
+    try {
+      rd.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,287 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.util.Arrays;
+
+// Validator of JSON texts (see Js.validate).
+// It reads the text once, without recursion and without making values. Its
+// memory is constant, except for documents nested more than 64 levels, which
+// need an array of one bit by level.
+final class JsValidator {
+  final CharSequence tx;
+  final int start;
+  final int end;
+  final boolean utf8;
+  final int maxString;
+
+  JsValidator (CharSequence tx, int start, int end, int maxString) {
+    this.tx = tx;
+    this.start = start;
+    this.end = end;
+    utf8 = tx instanceof Utf8;
+    this.maxString = maxString;
+  }
+
+  IllegalArgumentException fail (String msg, int ix) {
+    return new IllegalArgumentException(
+      msg + " at position " + (ix - start)
+    );
+  }
+
+  int blanks (int ix) {
+    while (ix < end) {
+      char ch = tx.charAt(ix);
+      if (ch != ' ' && ch != '\n' && ch != '\r' && ch != '\t') {
+        break;
+      }
+      ++ix;
+    }
+    return ix;
+  }
+
+  // Starts at the first character of 'word' and returns the position after
+  // it.
+  int literal (int ix, String word) {
+    int n = word.length();
+    if (ix + n > end) {
+      throw fail("Expected '" + word + "'", ix);
+    }
+    for (int i = 0; i < n; ++i) {
+      if (tx.charAt(ix + i) != word.charAt(i)) {
+        throw fail("Expected '" + word + "'", ix);
+      }
+    }
+    return ix + n;
+  }
+
+  // Starts at the first character of a digit sequence and returns the
+  // position after it.
+  int digits (int ix) {
+    int begin = ix;
+    while (ix < end) {
+      char ch = tx.charAt(ix);
+      if (ch < '0' || ch > '9') {
+        break;
+      }
+      ++ix;
+    }
+    if (ix == begin) {
+      throw fail("Expected a digit", ix);
+    }
+    return ix;
+  }
+
+  // Starts at the first character of a number and returns the position
+  // after it.
+  int number (int ix) {
+    if (tx.charAt(ix) == '-') {
+      ++ix;
+    }
+    if (ix < end && tx.charAt(ix) == '0') {
+      ++ix;
+    } else {
+      ix = digits(ix);
+    }
+    if (ix < end && tx.charAt(ix) == '.') {
+      ix = digits(ix + 1);
+    }
+    if (ix < end && (tx.charAt(ix) == 'e' || tx.charAt(ix) == 'E')) {
+      ++ix;
+      if (ix < end && (tx.charAt(ix) == '+' || tx.charAt(ix) == '-')) {
+        ++ix;
+      }
+      ix = digits(ix);
+    }
+    return ix;
+  }
+
+  // Starts at the first byte of a multibyte UTF-8 sequence and returns the
+  // position after it. Overlong sequences, surrogates and codes out of
+  // range are not valid.
+  int utf8 (int ix) {
+    int b = tx.charAt(ix);
+    int n;
+    int lo = 0x80;
+    int hi = 0xBF;
+    if (b >= 0xC2 && b <= 0xDF) {
+      n = 1;
+    } else if (b >= 0xE0 && b <= 0xEF) {
+      n = 2;
+      if (b == 0xE0) {
+        lo = 0xA0;
+      } else if (b == 0xED) {
+        hi = 0x9F;
+      }
+    } else if (b >= 0xF0 && b <= 0xF4) {
+      n = 3;
+      if (b == 0xF0) {
+        lo = 0x90;
+      } else if (b == 0xF4) {
+        hi = 0x8F;
+      }
+    } else {
+      throw fail("Bad UTF-8 sequence", ix);
+    }
+    for (int i = 1; i <= n; ++i) {
+      int c = ix + i < end ? tx.charAt(ix + i) : 0;
+      if (c < lo || c > hi) {
+        throw fail("Bad UTF-8 sequence", ix);
+      }
+      lo = 0x80;
+      hi = 0xBF;
+    }
+    return ix + n + 1;
+  }
+
+  // Starts at '"' and returns the position after the closing '"'.
+  int string (int ix) {
+    int begin = ix++;
+    for (;;) {
+      if (ix - begin - 1 > maxString) {
+        throw fail("String too long", begin);
+      }
+      if (ix == end) {
+        throw fail("Unexpected end of string", ix);
+      }
+      char ch = tx.charAt(ix);
+      if (ch == '"') {
+        return ix + 1;
+      }
+      if (ch < ' ') {
+        throw fail("Control character in string", ix);
+      }
+      if (ch == '\\') {
+        ++ix;
+        ch = ix < end ? tx.charAt(ix) : '\0';
+        if (ch == 'u') {
+          for (int i = 1; i <= 4; ++i) {
+            if (ix + i == end || !Js.isHex(tx.charAt(ix + i))) {
+              throw fail("Expected a four digits hexadecimal value", ix);
+            }
+          }
+          ix += 5;
+        } else if (
+          ch == '"' || ch == '\\' || ch == '/' || ch == 'b' || ch == 'f' ||
+          ch == 'n' || ch == 'r' || ch == 't'
+        ) {
+          ++ix;
+        } else {
+          throw fail("Expected an escape value", ix);
+        }
+      } else if (ch > 127 && utf8) {
+        ix = utf8(ix);
+      } else {
+        ++ix;
+      }
+    }
+  }
+
+  // Starts at the first character of an object key and returns the
+  // position of the first character of its value.
+  int key (int ix) {
+    if (ix == end || tx.charAt(ix) != '"') {
+      throw fail("Expected '\"'", ix);
+    }
+    ix = blanks(string(ix));
+    if (ix == end || tx.charAt(ix) != ':') {
+      throw fail("Expected ':'", ix);
+    }
+    return blanks(ix + 1);
+  }
+
+  // Checks the text.
+  void run (int maxDepth, int maxValues) {
+    // Kinds of open containers, one bit for each level (1 for objects). The
+    // first 64 levels are in 'kinds' and the other ones in 'deep'.
+    long kinds = 0;
+    long[] deep = null;
+    int depth = 0;
+    int values = 0;
+
+    int ix = blanks(start);
+    for (;;) {
+      // At the first character of a value.
+      if (ix == end) {
+        throw fail("Expected a value", ix);
+      }
+      if (++values > maxValues) {
+        throw fail("Too many values", ix);
+      }
+      char ch = tx.charAt(ix);
+      if (ch == '[' || ch == '{') {
+        if (depth == maxDepth) {
+          throw fail("Too many nested arrays and objects", ix);
+        }
+        boolean isObject = ch == '{';
+        long bit = 1L << (depth & 63);
+        if (depth < 64) {
+          kinds = isObject ? kinds | bit : kinds & ~bit;
+        } else {
+          int i = (depth >> 6) - 1;
+          if (deep == null) {
+            deep = new long[4];
+          } else if (i == deep.length) {
+            deep = Arrays.copyOf(deep, i * 2);
+          }
+          deep[i] = isObject ? deep[i] | bit : deep[i] & ~bit;
+        }
+        ++depth;
+
+        ix = blanks(ix + 1);
+        if (ix == end || tx.charAt(ix) != (isObject ? '}' : ']')) {
+          if (isObject) {
+            ix = key(ix);
+          }
+          continue;
+        }
+        --depth;
+        ++ix;
+      } else if (ch == '"') {
+        ix = string(ix);
+      } else if (ch == 't') {
+        ix = literal(ix, "true");
+      } else if (ch == 'f') {
+        ix = literal(ix, "false");
+      } else if (ch == 'n') {
+        ix = literal(ix, "null");
+      } else if (ch == '-' || (ch >= '0' && ch <= '9')) {
+        ix = number(ix);
+      } else {
+        throw fail("Expected a value", ix);
+      }
+
+      // After a value. Closes containers until a new value is found.
+      for (;;) {
+        ix = blanks(ix);
+        if (depth == 0) {
+          if (ix != end) {
+            throw fail("Spare characters", ix);
+          }
+          return;
+        }
+        int level = depth - 1;
+        long kind = level < 64 ? kinds : deep[(level >> 6) - 1];
+        boolean isObject = (kind & (1L << (level & 63))) != 0;
+        char close = isObject ? '}' : ']';
+        if (ix == end) {
+          throw fail("Expected ',' or '" + close + "'", ix);
+        }
+        ch = tx.charAt(ix);
+        if (ch == ',') {
+          ix = blanks(ix + 1);
+          if (isObject) {
+            ix = key(ix);
+          }
+          break;
+        }
+        if (ch != close) {
+          throw fail("Expected ',' or '" + close + "'", ix);
+        }
+        --depth;
+        ++ix;
+      }
+    }
+  }
+}
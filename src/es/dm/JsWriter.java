@@ -0,0 +1,282 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Json streaming writer.<p>
+ * It writes a JSON text directly in an Appendable (StringBuilder, Writer,
+ * ...) or in an OutputStream, keeping in memory only a buffer of fixed
+ * size. For example:<pre>
+ *   JsWriter wr = new JsWriter(new FileOutputStream(path));
+ *   wr.beginObject();
+ *   wr.name("id").value("x1");
+ *   wr.name("ns").beginArray().value(1).value(2).endArray();
+ *   wr.endObject();
+ *   wr.close();
+ * </pre>
+ */
+public class JsWriter implements Closeable {
+  static final int BUFFER_SIZE = 8192;
+
+  Appendable out;
+  StringBuilder sb;
+  // Stack of containers. 'true' for objects.
+  boolean[] stack = new boolean[32];
+  int depth = 0;
+  // There is not a previous element in the current container.
+  boolean first = true;
+  // A name was written and its value is expected.
+  boolean named = false;
+  // Root value was written.
+  boolean done = false;
+
+  /**
+   * @param out Target of the JSON text. If it is a StringBuilder, the text is
+   *        written directly in it without buffering.
+   */
+  public JsWriter (Appendable out) {
+    this.out = out;
+    sb = out instanceof StringBuilder
+      ? (StringBuilder)out
+      : new StringBuilder(BUFFER_SIZE + BUFFER_SIZE / 2)
+    ;
+  }
+
+  /**
+   * @param os Target of the JSON text. It is written codified in UTF-8.
+   */
+  public JsWriter (OutputStream os) {
+    this(new BufferedWriter(
+      new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE
+    ));
+  }
+
+  void dump () {
+    if (sb != out) {
+      try {
+        out.append(sb);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      sb.setLength(0);
+    }
+  }
+
+  // Must be called before writing every value.
+  void before () {
+    if (depth == 0) {
+      if (done) {
+        throw new IllegalStateException("Root value already was written");
+      }
+    } else if (stack[depth - 1]) {
+      if (!named) {
+        throw new IllegalStateException("Expected a name");
+      }
+      named = false;
+    } else if (!first) {
+      sb.append(',');
+    }
+    first = false;
+  }
+
+  // Must be called after writing every value.
+  JsWriter after () {
+    if (depth == 0) {
+      done = true;
+    }
+    if (sb.length() >= BUFFER_SIZE) {
+      dump();
+    }
+    return this;
+  }
+
+  JsWriter begin (boolean isObject, char ch) {
+    before();
+    sb.append(ch);
+    if (depth == stack.length) {
+      boolean[] st = new boolean[depth * 2];
+      System.arraycopy(stack, 0, st, 0, depth);
+      stack = st;
+    }
+    stack[depth++] = isObject;
+    first = true;
+    return this;
+  }
+
+  JsWriter end (boolean isObject, char ch) {
+    if (depth == 0 || stack[depth - 1] != isObject || named) {
+      throw new IllegalStateException(
+        "Unexpected end of " + (isObject ? "object" : "array")
+      );
+    }
+    sb.append(ch);
+    --depth;
+    first = false;
+    return after();
+  }
+
+  /**
+   * Starts an array.
+   * @return This writer.
+   */
+  public JsWriter beginArray () {
+    return begin(false, '[');
+  }
+
+  /**
+   * Ends an array.
+   * @return This writer.
+   */
+  public JsWriter endArray () {
+    return end(false, ']');
+  }
+
+  /**
+   * Starts an object.
+   * @return This writer.
+   */
+  public JsWriter beginObject () {
+    return begin(true, '{');
+  }
+
+  /**
+   * Ends an object.
+   * @return This writer.
+   */
+  public JsWriter endObject () {
+    return end(true, '}');
+  }
+
+  /**
+   * Writes the name of the next object value.
+   * @param name Name
+   * @return This writer.
+   */
+  public JsWriter name (String name) {
+    if (depth == 0 || !stack[depth - 1] || named) {
+      throw new IllegalStateException("Unexpected name");
+    }
+    if (!first) {
+      sb.append(',');
+    }
+    Js.escape(sb, name);
+    sb.append(':');
+    first = false;
+    named = true;
+    return this;
+  }
+
+  /**
+   * Writes a null value.
+   * @return This writer.
+   */
+  public JsWriter value () {
+    before();
+    sb.append("null");
+    return after();
+  }
+
+  /**
+   * Writes a boolean value.
+   * @param value Value
+   * @return This writer.
+   */
+  public JsWriter value (boolean value) {
+    before();
+    sb.append(value);
+    return after();
+  }
+
+  /**
+   * Writes a long value.
+   * @param value Value
+   * @return This writer.
+   */
+  public JsWriter value (long value) {
+    before();
+    sb.append(value);
+    return after();
+  }
+
+  /**
+   * Writes a double value.
+   * @param value Value
+   * @return This writer.
+   */
+  public JsWriter value (double value) {
+    before();
+    JsNum.append(sb, value);
+    return after();
+  }
+
+  /**
+   * Writes a string value.
+   * @param value Value
+   * @return This writer.
+   */
+  public JsWriter value (String value) {
+    before();
+    Js.escape(sb, value);
+    return after();
+  }
+
+  /**
+   * Writes a value already codified.
+   * @param value Value
+   * @return This writer.
+   */
+  public JsWriter value (Js value) {
+    before();
+    value.appendTo(sb);
+    return after();
+  }
+
+  /**
+   * Sends buffered text to the target and, if it is Flushable, flushes it.
+   */
+  public void flush () {
+    dump();
+    if (out instanceof Flushable) {
+      try {
+        ((Flushable)out).flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Sends buffered text to the target and, if it is Closeable, closes it.
+   * The target is closed even if the text is not complete, and then the
+   * error is reported.
+   * @throws IllegalStateException If the JSON text is not complete.
+   */
+  @Override
+  public void close () {
+    boolean complete = depth == 0 && !named;
+    try {
+      flush();
+    } finally {
+      if (out instanceof Closeable) {
+        try {
+          ((Closeable)out).close();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+    if (!complete) {
+      throw new IllegalStateException("Json text is not complete");
+    }
+  }
+}
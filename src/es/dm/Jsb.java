@@ -0,0 +1,758 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoder and decoder of the Json data model.<p>
+ * It has the same API as Js (write, rArray, rObject, ...), but values are
+ * stored in a compact binary format:
+ * <ul>
+ *   <li>Header: Number of keys and keys of every object, each one stored
+ *       only once.</li>
+ *   <li>Values: A tag byte followed by:
+ *     <ul>
+ *       <li>null, false, true: Nothing.</li>
+ *       <li>Integers: Varint (zigzag).</li>
+ *       <li>Doubles: 8 bytes.</li>
+ *       <li>Strings: Varint with the number of bytes and its UTF-8
+ *           bytes.</li>
+ *       <li>Arrays: Varints with the number of elements and the number of
+ *           bytes of them, and its elements.</li>
+ *       <li>Objects: Varints with the number of entries and the number of
+ *           bytes of them, and its entries, each one a varint with the key
+ *           index in the header and its value.</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ * Data is checked only once, when a Jsb is made from bytes. After that,
+ * arrays and objects are read without scanning their elements and their
+ * elements are views over the same bytes.
+ */
+public class Jsb {
+  static final int NULL = 0;
+  static final int FALSE = 1;
+  static final int TRUE = 2;
+  static final int INT = 3;
+  static final int DOUBLE = 4;
+  static final int STRING = 5;
+  static final int ARRAY = 6;
+  static final int OBJECT = 7;
+
+  // Whole document.
+  byte[] bs;
+  // Keys of the document header.
+  String[] keys;
+  // Start of the document root value.
+  int root;
+  // Segment [start, end) of 'bs' which holds this value.
+  int start;
+  int end;
+
+  Jsb (byte[] bs, String[] keys, int root, int start, int end) {
+    this.bs = bs;
+    this.keys = keys;
+    this.root = root;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Reads a value codified with 'toBytes'. Data is checked completely.
+   * @param bs Bytes of the value. They are not copied and must not be
+   *        modified while this Jsb is used.
+   * @throws IllegalArgumentException If 'bs' is not a valid value.
+   */
+  public Jsb (byte[] bs) {
+    this.bs = bs;
+    end = bs.length;
+    try {
+      In in = new In(bs, 0);
+      int n = in.size();
+      keys = new String[n];
+      for (int i = 0; i < n; ++i) {
+        keys[i] = in.string();
+      }
+      root = in.ix;
+      start = root;
+      in.check(keys.length, 0);
+      if (in.ix != end) {
+        throw new IllegalArgumentException("Spare bytes at " + in.ix);
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Unexpected end of data");
+    }
+  }
+
+  // Reader -------------------------------------------------------------------
+
+  static class In {
+    byte[] bs;
+    int ix;
+
+    In (byte[] bs, int ix) {
+      this.bs = bs;
+      this.ix = ix;
+    }
+
+    int tag () {
+      return bs[ix++];
+    }
+
+    long varint () {
+      long r = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = bs[ix++];
+        r |= (long)(b & 0x7F) << shift;
+        if (b >= 0) {
+          return r;
+        }
+      }
+      throw new IllegalArgumentException("Bad varint at " + ix);
+    }
+
+    // Reads a non negative int.
+    int size () {
+      long r = varint();
+      if (r < 0 || r > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Bad size at " + ix);
+      }
+      return (int)r;
+    }
+
+    long integer () {
+      long v = varint();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    double dbl () {
+      long r = 0;
+      for (int i = 0; i < 8; ++i) {
+        r = (r << 8) | (bs[ix++] & 0xFF);
+      }
+      return Double.longBitsToDouble(r);
+    }
+
+    String string () {
+      int n = size();
+      String r = new String(bs, ix, n, StandardCharsets.UTF_8);
+      ix += n;
+      return r;
+    }
+
+    // Skips the value after its tag.
+    void skip (int tag) {
+      switch (tag) {
+        case INT: varint(); break;
+        case DOUBLE: ix += 8; break;
+        case STRING:
+          int n = size();
+          ix += n;
+          break;
+        case ARRAY:
+        case OBJECT:
+          size();
+          int bytes = size();
+          ix += bytes;
+      }
+    }
+
+    // Checks the value which starts at 'ix' and moves 'ix' after it.
+    void check (int nkeys, int depth) {
+      if (depth > 10000) {
+        throw new IllegalArgumentException("Values too deeply nested");
+      }
+      int tag = tag();
+      switch (tag) {
+        case NULL:
+        case FALSE:
+        case TRUE:
+          break;
+        case INT:
+          varint();
+          break;
+        case DOUBLE:
+          ix += 8;
+          break;
+        case STRING:
+          int n = size();
+          ix += n;
+          break;
+        case ARRAY:
+        case OBJECT:
+          int count = size();
+          int bytes = size();
+          int end = ix + bytes;
+          for (int i = 0; i < count; ++i) {
+            if (tag == OBJECT && size() >= nkeys) {
+              throw new IllegalArgumentException("Bad key index at " + ix);
+            }
+            check(nkeys, depth + 1);
+          }
+          if (ix != end) {
+            throw new IllegalArgumentException("Bad container size at " + end);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException(
+            "Bad tag " + tag + " at " + (ix - 1)
+          );
+      }
+      if (ix > bs.length) {
+        throw new IndexOutOfBoundsException();
+      }
+    }
+  }
+
+  // Writer -------------------------------------------------------------------
+
+  // Container headers are not written with the elements, because their
+  // sizes are not known until they are closed. Instead, they are kept in
+  // 'heads' and inserted in one pass when the document is made (see
+  // 'merge').
+  static class Out {
+    byte[] bs;
+    int n = 0;
+    // Four ints for each container, in the order they were opened:
+    // position of its header in 'bs', tag, number of elements and number of
+    // bytes of its elements (or 'hbytes' when it was opened, until it is
+    // closed).
+    int[] heads = new int[32];
+    int nheads = 0;
+    // Bytes of headers of closed containers.
+    int hbytes = 0;
+
+    Out () {
+      this(64);
+    }
+
+    Out (int capacity) {
+      bs = new byte[capacity];
+    }
+
+    void ensure (int more) {
+      if (n + more > bs.length) {
+        bs = Arrays.copyOf(bs, Math.max(bs.length * 2, n + more));
+      }
+    }
+
+    void tag (int tag) {
+      ensure(1);
+      bs[n++] = (byte)tag;
+    }
+
+    void varint (long v) {
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        bs[n++] = (byte)((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      bs[n++] = (byte)v;
+    }
+
+    void integer (long v) {
+      varint((v << 1) ^ (v >> 63));
+    }
+
+    void dbl (double v) {
+      ensure(8);
+      long bits = Double.doubleToRawLongBits(v);
+      for (int i = 56; i >= 0; i -= 8) {
+        bs[n++] = (byte)(bits >>> i);
+      }
+    }
+
+    void bytes (byte[] src, int start, int end) {
+      ensure(end - start);
+      System.arraycopy(src, start, bs, n, end - start);
+      n += end - start;
+    }
+
+    void string (String s) {
+      byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      varint(b.length);
+      bytes(b, 0, b.length);
+    }
+
+    static int varintSize (long v) {
+      int r = 1;
+      while ((v & ~0x7FL) != 0) {
+        v >>>= 7;
+        ++r;
+      }
+      return r;
+    }
+
+    // Opens a container whose elements will be written from here and
+    // returns its index for 'close'.
+    int open () {
+      if (nheads == heads.length) {
+        heads = Arrays.copyOf(heads, nheads * 2);
+      }
+      heads[nheads] = n;
+      heads[nheads + 3] = hbytes;
+      int r = nheads;
+      nheads += 4;
+      return r;
+    }
+
+    // Closes the container 'h' returned by 'open'. Its size includes the
+    // headers of containers inside it.
+    void close (int h, int tag, int count) {
+      int bytes = n - heads[h] + hbytes - heads[h + 3];
+      heads[h + 1] = tag;
+      heads[h + 2] = count;
+      heads[h + 3] = bytes;
+      hbytes += 1 + varintSize(count) + varintSize(bytes);
+    }
+
+    // Appends the bytes of 'src', inserting the headers of its containers.
+    void merge (Out src) {
+      ensure(src.n + src.hbytes);
+      int[] hs = src.heads;
+      int run = 0;
+      for (int i = 0; i < src.nheads; i += 4) {
+        bytes(src.bs, run, hs[i]);
+        tag(hs[i + 1]);
+        varint(hs[i + 2]);
+        varint(hs[i + 3]);
+        run = hs[i];
+      }
+      bytes(src.bs, run, src.n);
+    }
+  }
+
+  // Table of keys used while a document is written.
+  static class Keys {
+    ArrayList<String> list = new ArrayList<>();
+    HashMap<String, Integer> map = new HashMap<>();
+
+    int index (String key) {
+      Integer r = map.get(key);
+      if (r == null) {
+        r = list.size();
+        list.add(key);
+        map.put(key, r);
+      }
+      return r;
+    }
+
+    // Returns the translation of 'ks' to indexes of this table or null if it
+    // is the identity.
+    int[] remap (String[] ks) {
+      int[] r = new int[ks.length];
+      boolean identity = true;
+      for (int i = 0; i < ks.length; ++i) {
+        r[i] = index(ks[i]);
+        identity &= r[i] == i;
+      }
+      return identity ? null : r;
+    }
+
+    // Makes a Jsb with the header of this table and the value 'body'.
+    Jsb doc (Out body) {
+      Out out = new Out(body.n + body.hbytes + 16 * list.size() + 16);
+      out.varint(list.size());
+      for (String k : list) {
+        out.string(k);
+      }
+      int root = out.n;
+      out.merge(body);
+      byte[] bs = out.n == out.bs.length ? out.bs : Arrays.copyOf(out.bs, out.n);
+      return new Jsb(bs, list.toArray(new String[0]), root, root, bs.length);
+    }
+  }
+
+  // Copies the value of 'in' to 'out' translating its key indexes with
+  // 'remap'.
+  static void copy (Out out, In in, int[] remap) {
+    int begin = in.ix;
+    int tag = in.tag();
+    if (remap == null || (tag != ARRAY && tag != OBJECT)) {
+      in.skip(tag);
+      out.bytes(in.bs, begin, in.ix);
+      return;
+    }
+    int count = in.size();
+    in.size();
+    int h = out.open();
+    for (int i = 0; i < count; ++i) {
+      if (tag == OBJECT) {
+        out.varint(remap[in.size()]);
+      }
+      copy(out, in, remap);
+    }
+    out.close(h, tag, count);
+  }
+
+  // Appends the value of 'v' to 'out', taking its keys to 'keys'.
+  static void add (Out out, Keys keys, Jsb v) {
+    copy(out, new In(v.bs, v.start), keys.remap(v.keys));
+  }
+
+  static Jsb scalar (Out body) {
+    return new Keys().doc(body);
+  }
+
+  /**
+   * Writes a null value
+   * @return Jsb value
+   */
+  public static Jsb write () {
+    Out out = new Out();
+    out.tag(NULL);
+    return scalar(out);
+  }
+
+  /**
+   * Writes a boolean value
+   * @param value value to write
+   * @return Jsb value
+   */
+  public static Jsb write (boolean value) {
+    Out out = new Out();
+    out.tag(value ? TRUE : FALSE);
+    return scalar(out);
+  }
+
+  /**
+   * Writes a long value
+   * @param value value to write
+   * @return Jsb value
+   */
+  public static Jsb write (long value) {
+    Out out = new Out();
+    out.tag(INT);
+    out.integer(value);
+    return scalar(out);
+  }
+
+  /**
+   * Writes a double value
+   * @param value value to write
+   * @return Jsb value
+   */
+  public static Jsb write (double value) {
+    Out out = new Out();
+    out.tag(DOUBLE);
+    out.dbl(value);
+    return scalar(out);
+  }
+
+  /**
+   * Writes a string value
+   * @param value value to write
+   * @return Jsb value
+   */
+  public static Jsb write (String value) {
+    Out out = new Out();
+    out.tag(STRING);
+    out.string(value);
+    return scalar(out);
+  }
+
+  /**
+   * Writes an array value
+   * @param value value to write
+   * @return Jsb value
+   */
+  public static Jsb write (List<Jsb> value) {
+    Keys keys = new Keys();
+    Out out = new Out();
+    int h = out.open();
+    for (Jsb v : value) {
+      add(out, keys, v);
+    }
+    out.close(h, ARRAY, value.size());
+    return keys.doc(out);
+  }
+
+  /**
+   * Writes an object value
+   * @param value value to write
+   * @return Jsb value
+   */
+  public static Jsb write (Map<String, Jsb> value) {
+    Keys keys = new Keys();
+    Out out = new Out();
+    int h = out.open();
+    for (Map.Entry<String, Jsb> e : value.entrySet()) {
+      Jsb v = e.getValue();
+      int[] remap = keys.remap(v.keys);
+      out.varint(keys.index(e.getKey()));
+      copy(out, new In(v.bs, v.start), remap);
+    }
+    out.close(h, OBJECT, value.size());
+    return keys.doc(out);
+  }
+
+  // Starts at the first character of a value of 'js' and ends after it +
+  // BLANKS, appending it to 'out'. Values are read straight from the text,
+  // without decoding containers. Entries of objects are kept in the order
+  // of the text, also the ones with duplicate keys ('rObject' reads the
+  // last one, like Js.rObject).
+  static void add (Out out, Keys keys, Js js, JsNum num, StringBuilder buf) {
+    char ch = js.tx.charAt(js.ix);
+    if (ch == '[' || ch == '{') {
+      boolean isObject = ch == '{';
+      char close = isObject ? '}' : ']';
+      int h = out.open();
+      int count = 0;
+      if (js.rFirst(close)) {
+        do {
+          if (isObject) {
+            if (js.tx.charAt(js.ix) != '"') {
+              js.exc("Expected '\"'");
+            }
+            out.varint(keys.index(js.rStringIn(buf)));
+            js.rColon();
+          }
+          add(out, keys, js, num, buf);
+          ++count;
+        } while (js.rNext(close));
+      }
+      out.close(h, isObject ? OBJECT : ARRAY, count);
+    } else if (ch == '"') {
+      out.tag(STRING);
+      out.string(js.rStringIn(buf));
+      js.blanks();
+    } else if (ch == 'n') {
+      if (!js.starts("null")) {
+        js.exc("Expected null");
+      }
+      js.ix += 4;
+      js.blanks();
+      out.tag(NULL);
+    } else if (ch == 't' || ch == 'f') {
+      out.tag(js.rBooleanElement() ? TRUE : FALSE);
+    } else {
+      js.rNumberElement(num);
+      if (num.isLong()) {
+        out.tag(INT);
+        out.integer(num.toLong());
+      } else {
+        out.tag(DOUBLE);
+        out.dbl(num.toDouble());
+      }
+    }
+  }
+
+  /**
+   * Converts a Js to Jsb.<p>
+   * Integer numbers in the range of long are converted to integers and
+   * the rest to doubles.
+   * @param js Js value
+   * @return Jsb value
+   */
+  public static Jsb of (Js js) {
+    Keys keys = new Keys();
+    Out out = new Out();
+    Js cursor = js.cursor();
+    cursor.blanks();
+    if (cursor.ix == cursor.end) {
+      cursor.exc("Unexpected end of text");
+    }
+    add(out, keys, cursor, new JsNum(), new StringBuilder());
+    if (!cursor.rend()) {
+      cursor.exc("Spare characters after the value");
+    }
+    return keys.doc(out);
+  }
+
+  // Reading ------------------------------------------------------------------
+
+  int tag () {
+    return bs[start];
+  }
+
+  IllegalArgumentException exc (String msg) {
+    return new IllegalArgumentException(msg + " (tag " + tag() + ")");
+  }
+
+  /**
+   * Reads a null value.
+   * @return true if this value is null
+   */
+  public boolean isNull () {
+    return tag() == NULL;
+  }
+
+  /**
+   * Reads a boolean value.
+   * @return The boolean value
+   */
+  public boolean rBoolean () {
+    int tag = tag();
+    if (tag != TRUE && tag != FALSE) {
+      throw exc("Expected true or false");
+    }
+    return tag == TRUE;
+  }
+
+  /**
+   * Reads an int value.
+   * @return The int value
+   */
+  public int rInteger () {
+    if (tag() != INT) {
+      throw exc("Expected an int value");
+    }
+    long r = new In(bs, start + 1).integer();
+    if (r < Integer.MIN_VALUE || r > Integer.MAX_VALUE) {
+      throw exc("Expected an int value");
+    }
+    return (int)r;
+  }
+
+  /**
+   * Reads a long value.
+   * @return The long value
+   */
+  public long rLong () {
+    if (tag() != INT) {
+      throw exc("Expected a long value");
+    }
+    return new In(bs, start + 1).integer();
+  }
+
+  /**
+   * Reads a double value. Integers are also read.
+   * @return The double value
+   */
+  public double rDouble () {
+    int tag = tag();
+    if (tag == INT) {
+      return new In(bs, start + 1).integer();
+    }
+    if (tag != DOUBLE) {
+      throw exc("Expected a double value");
+    }
+    return new In(bs, start + 1).dbl();
+  }
+
+  /**
+   * Reads a string value.
+   * @return The string value
+   */
+  public String rString () {
+    if (tag() != STRING) {
+      throw exc("Expected a string");
+    }
+    return new In(bs, start + 1).string();
+  }
+
+  /**
+   * Reads an array value.<p>
+   * Elements are views over the same bytes and are not decoded.
+   * @return The array value
+   */
+  public ArrayList<Jsb> rArray () {
+    if (tag() != ARRAY) {
+      throw exc("Expected an array");
+    }
+    In in = new In(bs, start + 1);
+    int count = in.size();
+    in.size();
+    ArrayList<Jsb> r = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      int begin = in.ix;
+      in.skip(in.tag());
+      r.add(new Jsb(bs, keys, root, begin, in.ix));
+    }
+    return r;
+  }
+
+  /**
+   * Reads an object value.<p>
+   * Values are views over the same bytes and are not decoded. Keys are
+   * decoded only once for every document.
+   * @return The object value
+   */
+  public HashMap<String, Jsb> rObject () {
+    if (tag() != OBJECT) {
+      throw exc("Expected an object");
+    }
+    In in = new In(bs, start + 1);
+    int count = in.size();
+    in.size();
+    HashMap<String, Jsb> r = new HashMap<>(count * 2);
+    for (int i = 0; i < count; ++i) {
+      String key = keys[in.size()];
+      int begin = in.ix;
+      in.skip(in.tag());
+      r.put(key, new Jsb(bs, keys, root, begin, in.ix));
+    }
+    return r;
+  }
+
+  // Appends the value of 'in' to 'sb' as JSON.
+  void appendJs (StringBuilder sb, In in) {
+    int tag = in.tag();
+    switch (tag) {
+      case NULL: sb.append("null"); break;
+      case FALSE: sb.append("false"); break;
+      case TRUE: sb.append("true"); break;
+      case INT: sb.append(in.integer()); break;
+      case DOUBLE: JsNum.append(sb, in.dbl()); break;
+      case STRING: Js.escape(sb, in.string()); break;
+      default:
+        int count = in.size();
+        in.size();
+        sb.append(tag == ARRAY ? '[' : '{');
+        for (int i = 0; i < count; ++i) {
+          if (i > 0) {
+            sb.append(',');
+          }
+          if (tag == OBJECT) {
+            Js.escape(sb, keys[in.size()]);
+            sb.append(':');
+          }
+          appendJs(sb, in);
+        }
+        sb.append(tag == ARRAY ? ']' : '}');
+    }
+  }
+
+  /**
+   * Converts this value to Js.
+   * @return Js value
+   */
+  public Js toJs () {
+    StringBuilder sb = new StringBuilder();
+    appendJs(sb, new In(bs, start));
+    return new Js(sb.toString());
+  }
+
+  /**
+   * Returns the bytes of this value, which can be read with 'new Jsb(bytes)'.
+   * <p>
+   * If this value is part of another one, its bytes include the header of
+   * the whole document.
+   * @return The bytes of this value
+   */
+  public byte[] toBytes () {
+    if (start == root) {
+      return Arrays.copyOf(bs, bs.length);
+    }
+    byte[] r = new byte[root + end - start];
+    System.arraycopy(bs, 0, r, 0, root);
+    System.arraycopy(bs, start, r, root, end - start);
+    return r;
+  }
+
+  /**
+   * Returns this value as JSON text.
+   * @return The JSON text of this value
+   */
+  @Override
+  public String toString () {
+    return toJs().toString();
+  }
+}
@@ -323,8 +323,8 @@ public class Std {
    * @param text Text
    */
   public static void append (String path, String text) {
-    try {
-      new FileOutputStream(path, true).write(text.getBytes("UTF-8"));
+    try (FileOutputStream out = new FileOutputStream(path, true)) {
+      out.write(text.getBytes("UTF-8"));
     } catch(Exception e) {
       e.printStackTrace();
     }
@@ -0,0 +1,120 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// UTF-8 text seen as a sequence of characters with one character for each
+// byte. Bytes of multibyte sequences are read as characters greater than
+// 127 and are only decoded by 'append' and 'str'.
+// Every structural character of JSON is ASCII, so Js can walk this
+// sequence as if it were a String.
+final class Utf8 implements CharSequence {
+  final ByteBuffer bs;
+
+  // 'bs' is read with absolute indexes, from 0 to its limit.
+  Utf8 (ByteBuffer bs) {
+    this.bs = bs;
+  }
+
+  @Override
+  public int length () {
+    return bs.limit();
+  }
+
+  @Override
+  public char charAt (int ix) {
+    return (char)(bs.get(ix) & 0xFF);
+  }
+
+  @Override
+  public CharSequence subSequence (int start, int end) {
+    return str(start, end);
+  }
+
+  @Override
+  public String toString () {
+    return str(0, bs.limit());
+  }
+
+  // Returns the decoded text of bytes [start, end). ASCII texts are copied
+  // directly.
+  String str (int start, int end) {
+    int i = start;
+    while (i < end && bs.get(i) >= 0) {
+      ++i;
+    }
+    if (i == end) {
+      byte[] a = new byte[end - start];
+      bs.get(start, a);
+      return new String(a, StandardCharsets.ISO_8859_1);
+    }
+    StringBuilder sb = new StringBuilder(end - start);
+    append(sb, start, end);
+    return sb.toString();
+  }
+
+  int cont (int ix, int end) {
+    if (ix >= end) {
+      return -1;
+    }
+    int b = bs.get(ix) & 0xFF;
+    return (b & 0xC0) == 0x80 ? b & 0x3F : -1;
+  }
+
+  // Appends to 'sb' the decoded text of bytes [start, end). Malformed
+  // sequences are appended as U+FFFD.
+  void append (StringBuilder sb, int start, int end) {
+    int ix = start;
+    while (ix < end) {
+      int b = bs.get(ix) & 0xFF;
+      if (b < 0x80) {
+        sb.append((char)b);
+        ++ix;
+        continue;
+      }
+
+      int n;
+      int code;
+      int min;
+      if (b >= 0xC2 && b < 0xE0) {
+        n = 1;
+        code = b & 0x1F;
+        min = 0x80;
+      } else if (b >= 0xE0 && b < 0xF0) {
+        n = 2;
+        code = b & 0x0F;
+        min = 0x800;
+      } else if (b >= 0xF0 && b < 0xF5) {
+        n = 3;
+        code = b & 0x07;
+        min = 0x10000;
+      } else {
+        sb.append('\uFFFD');
+        ++ix;
+        continue;
+      }
+
+      int i = 1;
+      for (; i <= n; ++i) {
+        int c = cont(ix + i, end);
+        if (c == -1) {
+          break;
+        }
+        code = (code << 6) | c;
+      }
+      if (i <= n || code < min || code > 0x10FFFF ||
+        (code >= 0xD800 && code < 0xE000)
+      ) {
+        sb.append('\uFFFD');
+        ix += i;
+        continue;
+      }
+
+      sb.appendCodePoint(code);
+      ix += i;
+    }
+  }
+}
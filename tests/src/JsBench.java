@@ -0,0 +1,118 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+import es.dm.Js;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of Js.indexed. It is run with 'make bench' and, to compare it
+ * with the Vector API, with 'JDM_VECTOR=1 make bench', which runs it first
+ * without and then with it.
+ */
+public class JsBench {
+  static Random rnd = new Random(0);
+
+  static String records (int n) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < n; ++i) {
+      if (i > 0) {
+        sb.append(",\n");
+      }
+      sb.append("{\"id\":").append(i)
+        .append(",\"name\":\"user ").append(rnd.nextInt())
+        .append("\",\"tags\":[\"a\",\"b\\\"c\"],\"pos\":{\"x\":")
+        .append(rnd.nextDouble()).append(",\"y\":")
+        .append(rnd.nextDouble()).append("},\"ok\":true}");
+    }
+    return sb.append("]").toString();
+  }
+
+  static String strings (int n) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < n; ++i) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append('"');
+      for (int j = 0; j < 1000; ++j) {
+        int c = rnd.nextInt(40);
+        sb.append(c == 0 ? "\\\"" : c == 1 ? "\\\\" : c == 2 ? "ñ" :
+          String.valueOf((char)('a' + c % 26)));
+      }
+      sb.append('"');
+    }
+    return sb.append("]").toString();
+  }
+
+  static String nested (int n) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < n; ++i) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      for (int j = 0; j < 20; ++j) {
+        sb.append("{\"k\":[");
+      }
+      sb.append(i);
+      for (int j = 0; j < 20; ++j) {
+        sb.append("]}");
+      }
+    }
+    return sb.append("]").toString();
+  }
+
+  static String numbers (int n) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < n; ++i) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append(rnd.nextDouble() * 1e6);
+    }
+    return sb.append("]").toString();
+  }
+
+  // Returns the best time in milliseconds of 'fn'.
+  static double time (Supplier<Object> fn) {
+    double best = Double.MAX_VALUE;
+    for (int i = 0; i < 12; ++i) {
+      long t = System.nanoTime();
+      fn.get();
+      best = Math.min(best, (System.nanoTime() - t) / 1e6);
+    }
+    return best;
+  }
+
+  static void run (String shape, String tx, int n) {
+    String path = "[" + (n - 1) + "]";
+    for (int i = 0; i < 2; ++i) {
+      Supplier<Js> mk = i == 0
+        ? () -> new Js(tx)
+        : () -> new Js(tx.getBytes(StandardCharsets.UTF_8))
+      ;
+      Js js = mk.get();
+      Js ijs = js.indexed();
+      double mb = tx.length() / 1e6;
+      double plain = time(() -> js.select(path));
+      double build = time(() -> js.indexed());
+      double indexed = time(() -> ijs.select(path));
+      System.out.printf(
+        "%-8s %-6s %6.1f MB | select %8.2f ms | index %8.2f ms " +
+        "(%6.0f MB/s) | indexed select %8.3f ms | x%.0f, x%.1f with index%n",
+        shape, i == 0 ? "String" : "UTF-8", mb, plain, build, mb / build * 1e3,
+        indexed, plain / indexed, plain / (build + indexed)
+      );
+    }
+  }
+
+  public static void main (String[] args) {
+    System.out.println("Vector API: " +
+      ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+    run("records", records(100000), 100000);
+    run("strings", strings(10000), 10000);
+    run("nested", nested(20000), 20000);
+    run("numbers", numbers(500000), 500000);
+  }
+}
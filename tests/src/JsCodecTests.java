@@ -0,0 +1,109 @@
+import es.dm.Js;
+import es.dm.JsCodec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JsCodecTests {
+  record Point (String name, long x, double y, boolean on) {}
+
+  static class Person {
+    private final String name;
+    private final int age;
+    private final Js extra;
+
+    private Person (String name, int age, Js extra) {
+      this.name = name;
+      this.age = age;
+      this.extra = extra;
+    }
+  }
+
+  static class Bad {
+    List<String> xs;
+
+    Bad (List<String> xs) {
+      this.xs = xs;
+    }
+  }
+
+  static boolean fails (Runnable fn) {
+    try {
+      fn.run();
+      return false;
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+  }
+
+  public static void run () {
+    System.out.println("JsCodec Tests");
+
+    JsCodec<Point> pc = JsCodec.ofObject(Point.class, "name", "x", "y", "on");
+    Point p = new Point("a\"ñ", -3, 1.5, true);
+    Js js = pc.write(p);
+    assert js.toString()
+      .equals("{\"name\":\"a\\\"ñ\",\"x\":-3,\"y\":1.5,\"on\":true}");
+    assert pc.read(js).equals(p);
+    assert pc.read(new Js(
+      " { \"on\" : false, \"z\":[1,{\"a\":2}], \"y\":2, \"x\":4, \"name\":null } "
+    )).equals(new Point(null, 4, 2.0, false));
+    assert pc.read(new Js(js.toString().getBytes(StandardCharsets.UTF_8)))
+      .equals(p);
+    // Keys with escapes, unknown keys and prefixes of names.
+    String etx = "{\"ñ\":0,\"\\u006eame\":\"b\",\"o\":1,\"y\\\"\":1,\"y\":2," +
+      "\"x\":3,\"onx\":4,\"on\":false,\"n\\u00f1\":5}";
+    Point ep = new Point("b", 3, 2.0, false);
+    assert pc.read(new Js(etx)).equals(ep);
+    assert pc.read(new Js(etx.getBytes(StandardCharsets.UTF_8))).equals(ep);
+
+    JsCodec<Point> pac = JsCodec.ofArray(Point.class, "name", "x", "y", "on");
+    assert pac.write(p).toString().equals("[\"a\\\"ñ\",-3,1.5,true]");
+    assert pac.read(pac.write(p)).equals(p);
+
+    List<Point> ps = new ArrayList<>();
+    assert pac.writeList(ps).toString().equals("[]");
+    assert pac.readList(new Js(" [ ] ")).size() == 0;
+    ps.add(p);
+    ps.add(new Point("b", 0, -0.25, false));
+    js = pac.writeList(ps);
+    assert js.toString()
+      .equals("[[\"a\\\"ñ\",-3,1.5,true],[\"b\",0,-0.25,false]]");
+    assert pac.readList(js).equals(ps);
+    assert pc.readList(pc.writeList(ps)).equals(ps);
+
+    JsCodec<Person> prc =
+      JsCodec.ofArray(Person.class, "name", "age", "extra");
+    Person pr = prc.read(new Js("[\"x\", 33, {\"k\": [1, 2]}]"));
+    assert pr.name.equals("x");
+    assert pr.age == 33;
+    assert pr.extra.rObject().get("k").rArray().size() == 2;
+    assert prc.write(pr).toString().equals("[\"x\",33,{\"k\": [1, 2]}]");
+
+    assert fails(() -> JsCodec.ofArray(Point.class, "name", "nothing"));
+    assert fails(() -> JsCodec.ofArray(Point.class, "x", "name"));
+    assert fails(() -> JsCodec.ofArray(Bad.class, "xs"));
+
+    assert fails(() -> pc.read(new Js("[\"a\",1,2,true]")));
+    assert fails(() -> pc.read(new Js("{\"name\":\"a\",\"x\":1,\"y\":2}")));
+    assert fails(() -> pc.read(new Js(
+      "{\"name\":\"a\",\"x\":1.5,\"y\":2,\"on\":true}"
+    )));
+    assert fails(() -> pac.read(new Js("[\"a\",1,2]")));
+    assert fails(() -> pac.read(new Js("[\"a\",1,2,true,5]")));
+    assert fails(() -> pac.read(new Js("[1,1,2,true]")));
+    assert fails(() -> pac.read(new Js("[\"a\",1,2,true] x")));
+    assert fails(() -> pac.readList(new Js("[[\"a\",1,2,true],]")));
+    assert fails(() -> prc.read(new Js("[\"x\", 3000000000, null]")));
+    assert fails(() -> prc.read(new Js("[\"x\", 33, ]")));
+    assert fails(() -> prc.read(new Js("[\"x\", 33,")));
+    assert fails(() -> pc.read(new Js(
+      "{\"z\":,\"name\":\"a\",\"x\":1,\"y\":2,\"on\":true}"
+    )));
+    assert fails(() -> pc.read(new Js(
+      "{\"name\":\"a\",\"x\":1,\"y\":2,\"on\":true,\"z\":}"
+    )));
+
+    System.out.println("    Finished");
+  }
+}
@@ -0,0 +1,113 @@
+import es.dm.Js;
+import es.dm.JsCodec;
+import es.dm.JsLines;
+import es.dm.Std;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class JsLinesTests {
+  record Event (long id, String msg) {}
+
+  static final JsCodec<Event> CODEC =
+    JsCodec.ofObject(Event.class, "id", "msg");
+
+  static Stream<Js> read (String path) {
+    try {
+      return JsLines.read(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static void run () {
+    System.out.println("JsLines Tests");
+
+    String path = Std.tmpf();
+    assert read(path).count() == 0;
+
+    Std.write(path, "\n  \n[1,\r\n2]\r\n\"a\"\n\n{}");
+    List<String> ls = read(path).map(Js::toString)
+      .collect(Collectors.toList());
+    assert ls.size() == 4;
+    assert ls.get(0).equals("[1,\r");
+    assert ls.get(2).equals("\"a\"");
+    assert ls.get(3).equals("{}");
+
+    Std.write(path, "[1, 2]\r\n\"ñ\"\n{}");
+    ls = read(path).map(Js::toString).collect(Collectors.toList());
+    assert ls.size() == 3;
+    assert read(path).findFirst().get().rArray().size() == 2;
+    assert read(path).skip(1).findFirst().get().rString().equals("ñ");
+
+    Std.del(path);
+    JsLines lines = new JsLines(path);
+    lines.add(Js.write("a\nb")).add(new Js("[1,\n2]")).close();
+    assert Std.read(path).equals("\"a\\nb\"\n[1, 2]");
+
+    Std.del(path);
+    lines = new JsLines(path);
+    for (int i = 0; i < 20000; ++i) {
+      lines.add(CODEC, new Event(i, "message " + i));
+    }
+    lines.close();
+
+    List<Event> es;
+    try {
+      es = JsLines.read(path, CODEC).parallel().collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    assert es.size() == 20000;
+    for (int i = 0; i < 20000; ++i) {
+      assert es.get(i).id() == i;
+      assert es.get(i).msg().equals("message " + i);
+    }
+    assert read(path).parallel()
+      .mapToLong(js -> CODEC.read(js).id()).sum() == 19999L * 20000 / 2;
+
+    Spliterator<Js> s1 = read(path).spliterator();
+    Spliterator<Js> s2 = s1.trySplit();
+    assert s2 != null;
+    long[] n = new long[1];
+    s2.forEachRemaining(js -> {
+      assert CODEC.read(js).id() == n[0]++;
+    });
+    s1.forEachRemaining(js -> {
+      assert CODEC.read(js).id() == n[0]++;
+    });
+    assert n[0] == 20000;
+
+    Std.del(path);
+
+    try (JsLines ls2 = new JsLines(path)) {
+      ls2.add(new Js("1")).add(new Js("2"));
+    }
+    assert Std.read(path).equals("1\n2");
+    try (JsLines ls2 = new JsLines(path)) {
+      ls2.add(new Js("3")).flush();
+      ls2.flush();
+    }
+    assert Std.read(path).equals("1\n2\n3");
+    Std.del(path);
+
+    String dir = Std.fpath(Std.tmpd(), "sub");
+    String bad = Std.fpath(dir, "lines.jsonl");
+    lines = new JsLines(bad);
+    lines.add(new Js("[1]"));
+    try {
+      lines.flush();
+      assert false;
+    } catch (UncheckedIOException e) {
+    }
+    Std.mkdir(dir);
+    lines.add(new Js("[2]")).close();
+    assert Std.read(bad).equals("[1]\n[2]");
+    Std.del(Std.fparent(dir));
+
+    System.out.println("    Finished");
+  }
+}
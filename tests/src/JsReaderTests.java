@@ -0,0 +1,295 @@
+import es.dm.Js;
+import es.dm.JsReader;
+import es.dm.JsReader.Event;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+public class JsReaderTests {
+  static ArrayList<Event> events (String js) {
+    JsReader rd = new JsReader(new StringReader(js));
+    ArrayList<Event> r = new ArrayList<>();
+    Event e = rd.next();
+    while (e != Event.END) {
+      r.add(e);
+      e = rd.next();
+    }
+    return r;
+  }
+
+  static boolean fails (String js) {
+    try {
+      events(js);
+      return false;
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+  }
+
+  // Events with their values, reading 'js' in push mode with chunks of 'n'
+  // bytes.
+  static ArrayList<String> pushEvents (String js, int n) {
+    JsReader rd = new JsReader(1024);
+    ArrayList<String> r = new ArrayList<>();
+    byte[] bs = js.getBytes(StandardCharsets.UTF_8);
+    int i = 0;
+    for (;;) {
+      Event e = rd.next();
+      if (e == Event.NEED_MORE) {
+        if (i >= bs.length) {
+          rd.end();
+        } else {
+          int len = Math.min(n, bs.length - i);
+          rd.feed(bs, i, len);
+          i += len;
+        }
+        continue;
+      }
+      if (e == Event.END) {
+        return r;
+      }
+      r.add(value(rd));
+    }
+  }
+
+  static ArrayList<String> pullEvents (String js) {
+    JsReader rd = new JsReader(new StringReader(js));
+    ArrayList<String> r = new ArrayList<>();
+    while (rd.next() != Event.END) {
+      r.add(value(rd));
+    }
+    return r;
+  }
+
+  static String value (JsReader rd) {
+    Event e = rd.event();
+    return e + (
+      e == Event.KEY || e == Event.STRING ? ":" + rd.rString()
+      : e == Event.NUMBER ? ":" + rd.rDouble()
+      : e == Event.BOOLEAN ? ":" + rd.rBoolean()
+      : ""
+    );
+  }
+
+  public static void run () {
+    System.out.println("JsReader Tests");
+
+    assert events(" null ").size() == 1;
+    assert events("[]").size() == 2;
+    assert events(" { } ").size() == 2;
+
+    String js = "{\"a\" : [3, -1.5e2, \"x\\u0040\"], \"b\": {\"c\": true}," +
+      " \"d\": null}";
+    JsReader rd = new JsReader(new StringReader(js));
+    assert rd.next() == Event.START_OBJECT;
+    assert rd.next() == Event.KEY;
+    assert rd.rString().equals("a");
+    assert rd.next() == Event.START_ARRAY;
+    assert rd.next() == Event.NUMBER;
+    assert rd.rInteger() == 3;
+    assert rd.next() == Event.NUMBER;
+    assert rd.rDouble() == -150;
+    assert rd.next() == Event.STRING;
+    assert rd.rString().equals("x@");
+    assert rd.next() == Event.END_ARRAY;
+    assert rd.next() == Event.KEY;
+    assert rd.rString().equals("b");
+    assert rd.next() == Event.START_OBJECT;
+    assert rd.depth() == 2;
+    assert rd.next() == Event.KEY;
+    assert rd.next() == Event.BOOLEAN;
+    assert rd.rBoolean();
+    assert rd.next() == Event.END_OBJECT;
+    assert rd.next() == Event.KEY;
+    assert rd.next() == Event.NULL;
+    assert rd.next() == Event.END_OBJECT;
+    assert rd.next() == Event.END;
+
+    rd = new JsReader(new StringReader(js));
+    rd.next();
+    rd.next();
+    rd.skip();
+    assert rd.next() == Event.KEY;
+    assert rd.rString().equals("b");
+    assert rd.rJs().toString().equals("{\"c\":true}");
+    assert rd.next() == Event.KEY;
+    assert rd.rJs().isNull();
+
+    StringBuilder big = new StringBuilder("[");
+    for (int i = 0; i < 10000; ++i) {
+      big.append(i == 0 ? "" : ", ").append("{\"n\": ").append(i).append('}');
+    }
+    big.append(']');
+    rd = new JsReader(new ByteArrayInputStream(
+      big.toString().getBytes(StandardCharsets.UTF_8)
+    ));
+    assert rd.next() == Event.START_ARRAY;
+    long sum = 0;
+    while (rd.next() == Event.START_OBJECT) {
+      sum += rd.rJs().rObject().get("n").rLong();
+    }
+    assert rd.event() == Event.END_ARRAY;
+    assert rd.next() == Event.END;
+    assert sum == 49995000;
+
+    rd = new JsReader(new ByteArrayInputStream(
+      "[\"ñón\"]".getBytes(StandardCharsets.UTF_8)
+    ));
+    rd.next();
+    rd.next();
+    assert rd.rString().equals("ñón");
+
+    assert fails("[1,]");
+    assert fails("[1 2]");
+    assert fails("{\"a\" 1}");
+    assert fails("{\"a\": 1,}");
+    assert fails("[tru]");
+    assert fails("[1] 2");
+    assert fails("[1");
+    assert fails("\"abc");
+
+    for (String tx : new String[] {
+      "12", " -1.5e+3 ", "\"a\\u00f1\\\"ón\"", "true", "null",
+      "[]", "{}", " [ 1 , [2,[ ]], {\"ñ\" : false,\"b\":null} ] ",
+      "{\"a\":\"€ 𝄞\",\"bcd\":[123456789012,-0.25,\"x\"]}",
+      "[\"\\u00f1\\n\\/\", 1E5, 0, -0.5e-2, 7, 0.25E+1, {\"\\\"\":3}]"
+    }) {
+      ArrayList<String> expected = pullEvents(tx);
+      for (int n = 1; n <= 8; ++n) {
+        assert pushEvents(tx, n).equals(expected) : tx + " " + n;
+      }
+    }
+
+    rd = new JsReader(100);
+    assert rd.next() == Event.NEED_MORE;
+    rd.feed("[1");
+    assert rd.next() == Event.START_ARRAY;
+    assert rd.next() == Event.NEED_MORE;
+    rd.feed("2, {\"a\"");
+    assert rd.next() == Event.NUMBER;
+    assert rd.rInteger() == 12;
+    assert rd.next() == Event.START_OBJECT;
+    assert rd.next() == Event.NEED_MORE;
+    rd.feed(":[true]}");
+    assert rd.next() == Event.KEY;
+    assert rd.rJs().toString().equals("[true]");
+    assert rd.next() == Event.END_OBJECT;
+    assert rd.next() == Event.NEED_MORE;
+    rd.feed("]");
+    assert rd.next() == Event.END_ARRAY;
+    assert rd.next() == Event.NEED_MORE;
+    rd.end();
+    assert rd.next() == Event.END;
+
+    rd = new JsReader(100);
+    rd.feed("[{\"a\":");
+    rd.next();
+    rd.next();
+    rd.next();
+    try {
+      rd.rJs();
+      assert false;
+    } catch (IllegalStateException e) {
+    }
+
+    rd = new JsReader(8);
+    rd.feed("[\"abc");
+    rd.next();
+    assert rd.next() == Event.NEED_MORE;
+    rd.feed("de\"");
+    assert rd.next() == Event.STRING;
+    try {
+      rd.feed("\"123456789");
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+
+    // Partial elements are not read again, so a long string and a long
+    // number fed one character at a time are read in linear time.
+    String longStr = "ab\\u00f1\\\"".repeat(20000);
+    String longNum = "-1." + "0".repeat(20000) + "1e2";
+    String longTx = "{\"" + longStr + "\" : [\"" + longStr + "\"," +
+      longNum + "]}";
+    rd = new JsReader(1 << 20);
+    StringBuilder out = new StringBuilder();
+    int fed = 0;
+    for (;;) {
+      Event e = rd.next();
+      if (e == Event.NEED_MORE) {
+        if (fed == longTx.length()) {
+          rd.end();
+        } else {
+          rd.feed(longTx.substring(fed, fed + 1));
+          ++fed;
+        }
+        continue;
+      }
+      if (e == Event.END) {
+        break;
+      }
+      if (e == Event.KEY || e == Event.STRING) {
+        out.append(rd.rString().length()).append(' ');
+      } else if (e == Event.NUMBER) {
+        out.append(rd.rDouble()).append(' ');
+      }
+    }
+    assert out.toString().equals("80000 80000 -100.0 ");
+
+    rd = new JsReader(8);
+    rd.feed("[\"abcde");
+    rd.next();
+    assert rd.next() == Event.NEED_MORE;
+    try {
+      rd.feed("fghi");
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+
+    rd = new JsReader(100);
+    rd.feed("[1.");
+    rd.next();
+    assert rd.next() == Event.NEED_MORE;
+    rd.feed("]");
+    try {
+      rd.next();
+      assert false;
+    } catch (IllegalArgumentException e) {
+      assert e.getMessage().startsWith("Expected a digit");
+    }
+
+    boolean[] closed = {false};
+    try (JsReader r = new JsReader(new StringReader("[1]") {
+      @Override
+      public void close () {
+        closed[0] = true;
+      }
+    })) {
+      assert r.next() == Event.START_ARRAY;
+    }
+    assert closed[0];
+
+    rd = new JsReader(100);
+    rd.feed("[1,");
+    rd.end();
+    rd.next();
+    rd.next();
+    try {
+      rd.next();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+    try {
+      rd.feed("2]");
+      assert false;
+    } catch (IllegalStateException e) {
+    }
+    try {
+      new JsReader(new StringReader("1")).feed("2");
+      assert false;
+    } catch (IllegalStateException e) {
+    }
+
+    System.out.println("    Finished");
+  }
+}
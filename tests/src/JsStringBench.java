@@ -0,0 +1,88 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+import es.dm.Js;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of reading and writing strings with Js. It is run with
+ * 'make bench strings'.
+ */
+public class JsStringBench {
+  static Random rnd = new Random(0);
+
+  // Returns 'n' strings of 'size' characters. One of each 'escapes'
+  // characters needs to be escaped (0 for none) and one of each 'nonAscii'
+  // is not ASCII (0 for none).
+  static String[] texts (int n, int size, int escapes, int nonAscii) {
+    String special = "\"\\\n\t";
+    String[] r = new String[n];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < n; ++i) {
+      sb.setLength(0);
+      for (int j = 0; j < size; ++j) {
+        if (escapes > 0 && rnd.nextInt(escapes) == 0) {
+          sb.append(special.charAt(rnd.nextInt(special.length())));
+        } else if (nonAscii > 0 && rnd.nextInt(nonAscii) == 0) {
+          sb.append("ñ€".charAt(rnd.nextInt(2)));
+        } else {
+          sb.append((char)('a' + rnd.nextInt(26)));
+        }
+      }
+      r[i] = sb.toString();
+    }
+    return r;
+  }
+
+  // Returns the best time in milliseconds of 'fn'.
+  static double time (Supplier<Object> fn) {
+    double best = Double.MAX_VALUE;
+    for (int i = 0; i < 15; ++i) {
+      long t = System.nanoTime();
+      fn.get();
+      best = Math.min(best, (System.nanoTime() - t) / 1e6);
+    }
+    return best;
+  }
+
+  static void run (String shape, String[] texts) {
+    String tx = Js.write(texts).toString();
+    byte[] bs = tx.getBytes(StandardCharsets.UTF_8);
+    Js js = new Js(tx);
+    Js bjs = new Js(bs);
+    double mb = tx.length() / 1e6;
+    double write = time(() -> {
+      long n = 0;
+      for (String s : texts) {
+        n += Js.write(s).toString().length();
+      }
+      return n;
+    });
+    double read = time(() -> js.rStringArray());
+    double readUtf8 = time(() -> bjs.rStringArray());
+    double readJs = time(() -> {
+      long n = 0;
+      for (Js e : js.rArray()) {
+        n += e.rString().length();
+      }
+      return n;
+    });
+    System.out.printf(
+      "%-10s %5.1f MB | write %6.0f MB/s | rStringArray %6.0f MB/s " +
+      "(UTF-8 %6.0f MB/s) | rArray + rString %6.0f MB/s%n",
+      shape, mb, mb / write * 1e3, mb / read * 1e3, mb / readUtf8 * 1e3,
+      mb / readJs * 1e3
+    );
+  }
+
+  public static void main (String[] args) {
+    run("ascii", texts(100000, 100, 0, 0));
+    run("ascii-long", texts(1000, 10000, 0, 0));
+    run("non-ascii", texts(100000, 100, 0, 10));
+    run("escapes-5", texts(100000, 100, 5, 0));
+    run("escapes-50", texts(100000, 100, 50, 0));
+    run("mixed", texts(100000, 100, 50, 10));
+  }
+}
@@ -1,8 +1,17 @@
 
 import es.dm.Js;
+import es.dm.JsObject;
+import es.dm.JsPath;
 import es.dm.Std;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class JsTests {
   public static void run () {
@@ -34,6 +43,29 @@ public class JsTests {
     assert new Js("12345e-2").rDouble() == 12345e-2;
     assert new Js("-12345e+2").rDouble() == -12345e2;
 
+    assert new Js("9223372036854775807").rLong() == Long.MAX_VALUE;
+    assert new Js(" -9223372036854775808 ").rLong() == Long.MIN_VALUE;
+    assert new Js("9007199254740993").rLong() == 9007199254740993L;
+    assert new Js("-2147483648").rInteger() == Integer.MIN_VALUE;
+    assert new Js("1e23").rDouble() == 1e23;
+    assert new Js("2.2250738585072014e-308").rDouble() == Double.MIN_NORMAL;
+    assert new Js("4.9e-324").rDouble() == Double.MIN_VALUE;
+    assert new Js("123456789012345678901234567890").rDouble() == 1.2345678901234568e29;
+    for (String bad : new String[] {
+      "9223372036854775808", "1.0", "1e2", "-", "1.", "01"
+    }) {
+      try {
+        new Js(bad).rLong();
+        assert false;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    try {
+      new Js("2147483648").rInteger();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+
     assert new Js(" \"\"").rString().equals("");
     assert new Js("\"abc\"  ").rString().equals("abc");
     assert new Js("\"\\\\a\\\"b\\\"c\"").rString().equals("\\a\"b\"c");
@@ -80,6 +112,134 @@ public class JsTests {
     assert hjs.get("b").toString().equals("{\"qb\": \"qbx\"}");
     assert hjs.get("c").toString().equals("[null, {}] ");
 
+    js = "[{\"a\": [1, {\"b\": [\"x\\ty\", {}]}]}, \"z\" , null, true]";
+    ajs = new Js(js).rArray();
+    assert ajs.size() == 4;
+    assert ajs.get(1).rString().equals("z");
+    assert ajs.get(1).toString().equals("\"z\" ");
+    assert ajs.get(2).isNull();
+    assert ajs.get(3).rBoolean();
+    ArrayList<Js> ajs2 = ajs.get(0).rObject().get("a").rArray();
+    assert ajs2.get(0).rInteger() == 1;
+    ajs2 = ajs2.get(1).rObject().get("b").rArray();
+    assert ajs2.get(0).rString().equals("x\ty");
+    assert ajs2.get(1).rObject().size() == 0;
+
+    Js view = new Js("[12, 3]").rArray().get(1);
+    assert view.rInteger() == 3;
+    assert view.rInteger() == 3;
+    assert view.toString().equals("3");
+
+    StringBuilder deep = new StringBuilder();
+    for (int i = 0; i < 1000; ++i) deep.append("[");
+    for (int i = 0; i < 1000; ++i) deep.append("]");
+    ajs = new Js(deep.toString()).rArray();
+    for (int i = 0; i < 998; ++i) ajs = ajs.get(0).rArray();
+    assert ajs.get(0).rArray().size() == 0;
+
+    for (String bad : new String[] {"[1,]", "[1 2]", "[{\"a\" 1}]", "[tru]"}) {
+      try {
+        new Js(bad).rArray();
+        assert false;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+
+    byte[] bs = ("{\"a\": [\"ñón\", 2, \"😀\"], \"b\\u00f1\": \"x\\\"y\"} ")
+      .getBytes(StandardCharsets.UTF_8);
+    hjs = new Js(bs).rObject();
+    ajs = hjs.get("a").rArray();
+    assert ajs.get(0).rString().equals("ñón");
+    assert ajs.get(1).rLong() == 2;
+    assert ajs.get(2).rString().equals("😀");
+    assert hjs.get("a").toString().equals("[\"ñón\", 2, \"😀\"]");
+    assert hjs.get("bñ").rString().equals("x\"y");
+    bs = "xx[\"ñón\"]yy".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer bf = ByteBuffer.wrap(bs);
+    bf.position(2);
+    bf.limit(bs.length - 2);
+    assert new Js(bf).rArray().get(0).rString().equals("ñón");
+    assert bf.position() == 2;
+    assert new Js("\"ñ\"".getBytes(StandardCharsets.UTF_8)).toString()
+      .equals("\"ñ\"");
+
+    js = "{\"a\": {\"x\": {\"c\": 0}, \"b\": [0, {}, [1], {\"c\": \"v3\"}]}," +
+      " \"u\": [{\"n\": \"p\", \"i\": 1}, {\"n\": \"q\"}, 4, {\"n\" : \"r\"} ]," +
+      " \"k.\\\"k\": {\"ñ\": [true]}} ";
+    Js doc = new Js(js);
+    assert doc.select("a.b[3].c").get().rString().equals("v3");
+    assert doc.select("a.b[2][0]").get().rInteger() == 1;
+    assert doc.select("a.b[1]").get().rObject().isEmpty();
+    assert doc.select("a.x.c").get().rInteger() == 0;
+    assert !doc.select("a.b[4]").isPresent();
+    assert !doc.select("a.z").isPresent();
+    assert !doc.select("a.b.c").isPresent();
+    assert doc.select("[\"k.\\\"k\"].ñ[0]").get().rBoolean();
+    assert doc.select("u").get().rArray().size() == 4;
+    assert String.join(",", doc.selectAll("u[*].n").map(Js::rString)
+      .toArray(String[]::new)).equals("p,q,r");
+    assert doc.selectAll("a.*.c").count() == 1;
+    assert doc.selectAll("*").count() == 3;
+    assert new Js(js.getBytes(StandardCharsets.UTF_8))
+      .select("[\"k.\\\"k\"].ñ[0]").get().rBoolean();
+    try {
+      doc.select("a..b");
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+    Js qdoc = new Js("{\"a\\\"]b\": {\"c]\": [5, 6]}, \"a\": 0}");
+    assert qdoc.select("[\"a\\\"]b\"][\"c]\"][1]").get().rInteger() == 6;
+    for (String bad : new String[] {
+      "[\"a", "[\"a\"", "[\"a\"x]", "[\"a\\\"]"
+    }) {
+      try {
+        JsPath.compile(bad);
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    // Streams are lazy: the bad tail is not read.
+    assert new Js("[{\"n\": 1}, {\"n\": 2}, x").selectAll("[*].n")
+      .limit(2).mapToInt(Js::rInteger).sum() == 3;
+    assert String.join(",", new Js("[[1, [2]], 3, [[4], 5]]")
+      .selectAll("[*][*]").map(Js::toString).toArray(String[]::new))
+      .equals("1,[2],[4],5");
+    // Repeated keys: the last value, as in Js.get.
+    Js pdup = new Js("{\"a\":1, \"b\":{\"c\":0}, \"a\":{\"c\":[2]}, \"d\":3}");
+    assert pdup.select("a").get().toString().equals("{\"c\":[2]}");
+    assert pdup.select("a.c[0]").get().rInteger() == 2;
+    assert pdup.select("d").get().rInteger() == 3;
+    assert String.join(",", new Js("[{\"n\":1,\"n\":2},{\"n\":3},{}]")
+      .selectAll("[*].n").map(Js::toString).toArray(String[]::new))
+      .equals("2,3");
+    assert pdup.selectAll("*").count() == 4;
+    // Empty values fail.
+    String[][] emptyPaths = {
+      {"[1,,2]", "[1]", "[*]", "[1].x", "[2]"},
+      {"[,1]", "[0]", "[1]", "[*].x"},
+      {"{\"a\":,\"b\":1}", "a", "b", "*", "a[0]"}
+    };
+    for (String[] ps : emptyPaths) {
+      for (int i = 1; i < ps.length; ++i) {
+        try {
+          new Js(ps[0]).selectAll(ps[i]).count();
+          assert false : ps[0] + " " + ps[i];
+        } catch (IllegalArgumentException e) {
+        }
+      }
+    }
+
+    String path = Std.tmpf();
+    Std.write(path, "{\"id\": \"ñ1\", \"ns\": [1, 2, 3]}\n");
+    try {
+      hjs = Js.ofFile(path).rObject();
+      assert hjs.get("id").rString().equals("ñ1");
+      assert hjs.get("ns").rArray().get(2).rInteger() == 3;
+    } catch (java.io.IOException e) {
+      assert false;
+    }
+    Std.del(path);
+
     assert Js.write().isNull();
 
     assert Js.write(true).rBoolean();
@@ -106,10 +266,684 @@ public class JsTests {
     assert Js.write(12345e-2).rDouble() == 12345e-2;
     assert Js.write(-12345e+2).rDouble() == -12345e2;
 
+    assert Js.write(0.0).toString().equals("0.0");
+    assert Js.write(-0.0).toString().equals("-0.0");
+    assert Js.write(100.0).toString().equals("100.0");
+    assert Js.write(0.1).toString().equals("0.1");
+    assert Js.write(0.3).toString().equals("0.3");
+    assert Js.write(0.002).toString().equals("0.002");
+    assert Js.write(1e-4).toString().equals("1.0E-4");
+    assert Js.write(9999999.0).toString().equals("9999999.0");
+    assert Js.write(1e7).toString().equals("1.0E7");
+    assert Js.write(1e23).toString().equals("1.0E23");
+    assert Js.write(-123.456).toString().equals("-123.456");
+    assert Js.write(Double.MAX_VALUE).toString()
+      .equals("1.7976931348623157E308");
+    assert Js.write(Double.MIN_VALUE).toString().equals("4.9E-324");
+    assert Js.write(Double.NaN).toString().equals("NaN");
+    assert Js.write(Double.NEGATIVE_INFINITY).toString().equals("-Infinity");
+
+    Random rnd = new Random(1);
+    for (int i = 0; i < 10000; ++i) {
+      double d = Double.longBitsToDouble(rnd.nextLong());
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        continue;
+      }
+      String s = Js.write(d).toString();
+      assert Double.parseDouble(s) == d : s;
+      assert new Js(s).rDouble() == d : s;
+      assert s.length() <= Double.toString(d).length() : s;
+    }
+
+    assert Js.write(new long[] {}).toString().equals("[]");
+    assert Js.write(new long[] {1, -2, Long.MAX_VALUE}).toString()
+      .equals("[1,-2,9223372036854775807]");
+    assert Js.write(new double[] {}).toString().equals("[]");
+    assert Js.write(new double[] {1.5, -0.1, 1e30}).toString()
+      .equals("[1.5,-0.1,1.0E30]");
+
+    assert Js.write(new int[] {}).toString().equals("[]");
+    assert Js.write(new int[] {3, -4}).toString().equals("[3,-4]");
+    assert Js.write(new boolean[] {true, false}).toString()
+      .equals("[true,false]");
+    assert Js.write(new String[] {"a", "\"b\n"}).toString()
+      .equals("[\"a\",\"\\\"b\\n\"]");
+
+    assert new Js(" [ ] ").rIntArray().length == 0;
+    assert new Js("[]").rLongArray().length == 0;
+    assert new Js("[]").rDoubleArray().length == 0;
+    assert new Js("[]").rBooleanArray().length == 0;
+    assert new Js("[]").rStringArray().length == 0;
+    assert Arrays.equals(
+      new Js(" [1, -2 ,2147483647,-2147483648] ").rIntArray(),
+      new int[] {1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE}
+    );
+    assert Arrays.equals(
+      new Js("[9223372036854775807,-9223372036854775808,0]").rLongArray(),
+      new long[] {Long.MAX_VALUE, Long.MIN_VALUE, 0}
+    );
+    assert Arrays.equals(
+      new Js("[1.5, -0.1e-2 , 3]").rDoubleArray(),
+      new double[] {1.5, -0.1e-2, 3}
+    );
+    assert Arrays.equals(
+      new Js("[true , false,true]").rBooleanArray(),
+      new boolean[] {true, false, true}
+    );
+    assert Arrays.equals(
+      new Js("[\"a\", \"\\u00f1\\n\" ,\"\"]").rStringArray(),
+      new String[] {"a", "\u00f1\n", ""}
+    );
+    assert Arrays.equals(
+      new Js("[\"a\",\"ñ\"]".getBytes(StandardCharsets.UTF_8))
+        .rStringArray(),
+      new String[] {"a", "ñ"}
+    );
+
+    double[] ds = new double[100];
+    long[] ls = new long[100];
+    for (int i = 0; i < 100; ++i) {
+      ds[i] = rnd.nextDouble() * 1e6;
+      ls[i] = rnd.nextLong();
+    }
+    assert Arrays.equals(Js.write(ds).rDoubleArray(), ds);
+    assert Arrays.equals(Js.write(ls).rLongArray(), ls);
+    js = "[[1,2],[3]]";
+    assert new Js(js).rArray().get(1).rIntArray()[0] == 3;
+
+    for (String bad : new String[] {
+      "", "[", "[1", "[1,", "[1,]", "[1 2]", "[1]x", "{}", "[\"a\"]", "[1.5]",
+      "[2147483648]"
+    }) {
+      try {
+        new Js(bad).rIntArray();
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    for (String bad : new String[] {"[1]", "[\"a\",]", "[\"a]", "[null]"}) {
+      try {
+        new Js(bad).rStringArray();
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    try {
+      new Js("[tru]").rBooleanArray();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+    try {
+      new Js("[1e2]").rLongArray();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+
+    StringBuilder big = new StringBuilder("[");
+    for (int i = 0; i < 5000; ++i) {
+      if (i > 0) {
+        big.append(", ");
+      }
+      big.append("{\"id\":").append(i).append(",\"v\":[\"x\", {\"a\": \"]\"}]}");
+    }
+    big.append("] ");
+    List<Integer> ids = new Js(big.toString()).rArrayParallel(
+      e -> e.rObject().get("id").rInteger(), Collectors.toList()
+    );
+    assert ids.size() == 5000;
+    for (int i = 0; i < 5000; ++i) {
+      assert ids.get(i) == i;
+    }
+    ForkJoinPool pool = new ForkJoinPool(3);
+    assert new Js(big.toString().getBytes(StandardCharsets.UTF_8))
+      .rArrayParallel(pool, e -> e.rObject().get("id").rLong(),
+        Collectors.summingLong(v -> v)) == 4999L * 5000 / 2;
+    pool.shutdown();
+    assert new Js(" [] ").rArrayParallel(e -> e, Collectors.toList()).isEmpty();
+    assert new Js("[[1],2,\"a\"]")
+      .rArrayParallel(e -> e.toString(), Collectors.joining("|"))
+      .equals("[1]|2|\"a\"");
+    for (String bad : new String[] {"", "{}", "[1,]", "[[1]", "[1] 2"}) {
+      try {
+        new Js(bad).rArrayParallel(e -> e, Collectors.toList());
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    try {
+      new Js("[1,2,\"a\",4]")
+        .rArrayParallel(e -> e.rInteger(), Collectors.toList());
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+
+    // The same Js read from several threads.
+    Js shared = new Js(big.toString());
+    Js sharedElement = shared.select("[17]").get();
+    boolean[] failed = {false};
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 20; ++j) {
+          if (shared.rArray().size() != 5000 ||
+            shared.rArrayCompact().get(4999).rObjectCompact().get("id")
+              .rInteger() != 4999 ||
+            !shared.select("[2500].v[1].a").get().rString().equals("]") ||
+            sharedElement.rObject().get("id").rInteger() != 17 ||
+            !sharedElement.toString().startsWith("{\"id\":17")
+          ) {
+            failed[0] = true;
+          }
+          try {
+            shared.rString();
+            failed[0] = true;
+          } catch (IllegalArgumentException e) {
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    assert !failed[0];
+
+    Js ijs = new Js(big.toString()).indexed();
+    assert ijs.select("[4321].id").get().rInteger() == 4321;
+    assert ijs.selectAll("[*].v[1].a").count() == 5000;
+    assert ijs.rArrayParallel(e -> e.rObject().get("id").rInteger(),
+      Collectors.toList()).equals(ids);
+    ijs = new Js(big.toString().getBytes(StandardCharsets.UTF_8)).indexed();
+    assert ijs.select("[4999].id").get().rInteger() == 4999;
+    assert ijs.select("[4999].v[1]").get().indexed()
+      .select("a").get().rString().equals("]");
+
+    // Escapes, strings and non ASCII characters across blocks of 64 bytes.
+    String[] pieces = {
+      "\"\\\\\"", "\"a\\\"]\"", "\"\\\\\\\"{\"", "\"ñ€\\u0022\"",
+      "[]", "{}", "1", "[\"}\"]", "{\"\\\\\":[\"\\\\\"]}", "\"       \"",
+      "\"𝄞\"", "[\"𝄞]\\\"𝄞\"]"
+    };
+    for (int i = 0; i < 300; ++i) {
+      StringBuilder sb = new StringBuilder("[");
+      int n = rnd.nextInt(60);
+      for (int j = 0; j < n; ++j) {
+        if (j > 0) {
+          sb.append(',');
+        }
+        sb.append(pieces[rnd.nextInt(pieces.length)]);
+      }
+      sb.append("]");
+      String tx = sb.toString();
+      List<String> expected = new Js(tx).selectAll("[*]")
+        .map(Js::toString).collect(Collectors.toList());
+      assert new Js(tx).indexed().selectAll("[*]").map(Js::toString)
+        .collect(Collectors.toList()).equals(expected) : tx;
+      assert new Js(tx.getBytes(StandardCharsets.UTF_8)).indexed()
+        .selectAll("[*]").map(Js::toString)
+        .collect(Collectors.toList()).equals(expected) : tx;
+    }
+
+    // Characters out of the BMP are two UTF-16 units.
+    String nonBmp = "[\"" + "𝄞".repeat(40) +
+      "\", {\"𝄞\": \"]\"}, [1, \"𝄞\"]]";
+    ijs = new Js(nonBmp).indexed();
+    assert ijs.select("[2][1]").get().rString().equals("𝄞");
+    assert ijs.select("[1].𝄞").get().rString().equals("]");
+    ijs = new Js(nonBmp.getBytes(StandardCharsets.UTF_8)).indexed();
+    assert ijs.select("[2][1]").get().rString().equals("𝄞");
+
+    for (String bad : new String[] {
+      "[", "[}", "{]", "[1]]", "\"a", "[\"a\\\"]", "{\"a\":[1}"
+    }) {
+      try {
+        new Js(bad).indexed();
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+
+    String ctx = "{\"b\":[1,{\"x\":true}],\"a\":\"s\",\"c\":{\"d\":null}," +
+      "\"\\u0061\":2,\"ñ\":{}}";
+    for (Js cjs : new Js[] {
+      new Js(ctx), new Js(ctx.getBytes(StandardCharsets.UTF_8))
+    }) {
+      JsObject o = cjs.rObjectCompact();
+      assert o.size() == 4;
+      assert new ArrayList<>(o.keySet())
+        .equals(Arrays.asList("b", "a", "c", "ñ"));
+      assert o.get("a").rInteger() == 2;
+      assert o.get("b").rArray().get(1).rObjectCompact().get("x").rBoolean();
+      assert o.get("c").rObjectCompact().get("d").isNull();
+      assert o.get("c").rObject().get("d").isNull();
+      assert o.get("ñ").rObjectCompact().isEmpty();
+      assert o.get("z") == null && !o.containsKey("z") && o.containsKey("c");
+      HashMap<String, Js> h = cjs.rObject();
+      for (String k : h.keySet()) {
+        assert h.get(k).toString().equals(o.get(k).toString());
+      }
+      try {
+        o.put("z", Js.write(1));
+        assert false;
+      } catch (UnsupportedOperationException e) {
+      }
+    }
+
+    StringBuilder csb = new StringBuilder("[");
+    for (int i = 0; i < 1000; ++i) {
+      if (i > 0) {
+        csb.append(',');
+      }
+      csb.append(i % 3 == 0
+        ? "{\"id\":" + i + ",\"name\":\"n" + i + "\",\"ok\":true}"
+        : i % 3 == 1
+          ? "{\"id\":" + i + ",\"ok\":false}"
+          : "{\"k" + i + "\":" + i + ",\"id\":" + i + "}"
+      );
+    }
+    ArrayList<Js> cajs = new Js(csb.append("]").toString()).rArrayCompact();
+    assert cajs.size() == 1000;
+    for (int i = 0; i < 1000; ++i) {
+      JsObject o = cajs.get(i).rObjectCompact();
+      assert o.get("id").rInteger() == i;
+      assert o.size() == (i % 3 == 0 ? 3 : 2);
+      assert i % 3 != 0 || o.get("name").rString().equals("n" + i);
+      assert i % 3 != 2 || o.get("k" + i).rInteger() == i;
+    }
+
+    // Big objects (with hash table or not shared) and repeated keys.
+    for (int size : new int[] {9, 64, 65, 200}) {
+      StringBuilder sb = new StringBuilder("{");
+      for (int i = 0; i < size; ++i) {
+        sb.append(i > 0 ? "," : "").append("\"k" + i + "\":" + i);
+      }
+      sb.append(",\"k1\":-1}");
+      JsObject o = new Js(sb.toString()).rObjectCompact();
+      assert o.size() == size;
+      for (int i = 0; i < size; ++i) {
+        assert o.get("k" + i).rInteger() == (i == 1 ? -1 : i);
+      }
+      assert new ArrayList<>(o.keySet()).get(size - 1).equals("k" + (size - 1));
+      assert !o.containsKey("k" + size);
+    }
+    assert new Js("{\"a\":[1],\"a\":2}").rObjectCompact().get("a")
+      .rInteger() == 2;
+
+    for (String bad : new String[] {
+      "", "[]", "{", "{\"a\"}", "{\"a\":}", "{\"a\":1,}", "{a:1}", "{} 1"
+    }) {
+      try {
+        new Js(bad).rObjectCompact();
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+
+    // Lazy accessors.
+    String gtx = " { \"a\" : [1, {\"x\": \"]\"}, \"s\"] , " +
+      "\"\\u0062\": {\"c\":null}, \"n\": -2.5e3, \"ñ\": true } ";
+    for (Js gjs : new Js[] {
+      new Js(gtx), new Js(gtx.getBytes(StandardCharsets.UTF_8)),
+      new Js(gtx).indexed(), new Js(gtx).select("").get(),
+      new Js("[" + gtx + "]").rArray().get(0)
+    }) {
+      assert gjs.get("a").get().at(1).get().get("x").get().rString()
+        .equals("]");
+      assert gjs.get("a").get().at(2).get().rString().equals("s");
+      assert !gjs.get("a").get().at(3).isPresent();
+      assert !gjs.get("a").get().at(-1).isPresent();
+      assert gjs.get("b").get().get("c").get().isNull();
+      assert gjs.get("n").get().rDouble() == -2500;
+      assert gjs.get("ñ").get().rBoolean();
+      assert !gjs.get("z").isPresent();
+      assert !gjs.get("b").get().get("d").isPresent();
+    }
+    assert !new Js("[]").at(0).isPresent();
+    assert !new Js("{}").get("a").isPresent();
+    // Repeated keys: the last value, with and without decoded values.
+    Js dup = new Js("{\"a\":1, \"b\":2, \"a\":[3]}");
+    assert dup.get("a").get().toString().equals("[3]");
+    Js cdup = dup.cached();
+    cdup.rObject();
+    assert cdup.get("a").get().toString().equals("[3]");
+    assert dup.get("b").get().rInteger() == 2;
+    // Arrays are read only until the element, objects until their end.
+    assert new Js("[0, 1, 2").at(1).get().rInteger() == 1;
+    for (String bad : new String[] {
+      "", "[1]", "{\"a\":}", "{\"b\":1,}", "{\"a\":1, \"b\" 2"
+    }) {
+      try {
+        new Js(bad).get("a");
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    for (String bad : new String[] {"", "{}", "[,1]", "[1,]"}) {
+      try {
+        new Js(bad).at(1);
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+
+    // Validation.
+    for (String good : new String[] {
+      gtx, "0", "-0.5e+10", " \"\" ", "[]", "{}", "[[],{}]", "null",
+      "{\"a\":{\"b\":[true,false,null]}}", "\"\\u00f1\\n\\/\"", "\"ñ€𝄞\""
+    }) {
+      assert new Js(good).validate() != null : good;
+      new Js(good.getBytes(StandardCharsets.UTF_8)).validate();
+    }
+    for (String bad : new String[] {
+      "", " ", "01", "1.", ".5", "-", "1e", "+1", "tru", "nul", "[1,]",
+      "[,1]", "[1 2]", "{\"a\"}", "{\"a\":}", "{a:1}", "{\"a\":1,}", "[}",
+      "{]", "[[]", "[]]", "{} 1", "\"a", "\"\\x\"", "\"\\u12g4\"",
+      "\"a\tb\"", "\u000c1", "[1]\u0000"
+    }) {
+      for (Js vjs : new Js[] {
+        new Js(bad), new Js(bad.getBytes(StandardCharsets.UTF_8))
+      }) {
+        try {
+          vjs.validate();
+          assert false : bad;
+        } catch (IllegalArgumentException e) {
+        }
+      }
+    }
+    for (byte[] bad : new byte[][] {
+      {'"', (byte)0xc3, '"'}, {'"', (byte)0xc0, (byte)0xa0, '"'},
+      {'"', (byte)0xed, (byte)0xa0, (byte)0x80, '"'},
+      {'"', (byte)0xf4, (byte)0x90, (byte)0x80, (byte)0x80, '"'}
+    }) {
+      try {
+        new Js(bad).validate();
+        assert false;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    String nested = "[{\"a\":".repeat(100) + "1" + "}]".repeat(100);
+    new Js(nested).validate(200, 1, 201, nested.length());
+    for (int[] lm : new int[][] {
+      {199, 1, 201, nested.length()}, {200, 0, 201, nested.length()},
+      {200, 1, 200, nested.length()}, {200, 1, 201, nested.length() - 1}
+    }) {
+      try {
+        new Js(nested).validate(lm[0], lm[1], lm[2], lm[3]);
+        assert false : Arrays.toString(lm);
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    try {
+      new Js("[".repeat(1000000)).validate();
+      assert false;
+    } catch (IllegalArgumentException e) {
+      assert e.getMessage().endsWith("at position 512") : e.getMessage();
+    }
+    String deepBad = "[".repeat(5000) + "]".repeat(4999) + "}";
+    try {
+      new Js(deepBad).validate(5000, 10, 10000, 10000);
+      assert false;
+    } catch (IllegalArgumentException e) {
+      assert e.getMessage().endsWith("at position 9999") : e.getMessage();
+    }
+
+    // Formats.
+    String ftx = " { \"b\" : [1, {\"x\": \"] \\u0041\"}, [ ], \"s\"] , " +
+      "\"a\": {\"c\":null, \"\\u0062\": {}}, \"n\": -2.50e3, \"ñ\": true } ";
+    String fmin = "{\"b\":[1,{\"x\":\"] \\u0041\"},[],\"s\"]," +
+      "\"a\":{\"c\":null,\"\\u0062\":{}},\"n\":-2.50e3,\"ñ\":true}";
+    String fpretty = "{\n" +
+      " \"b\": [\n  1,\n  {\n   \"x\": \"] \\u0041\"\n  },\n  [],\n  \"s\"\n" +
+      " ],\n" +
+      " \"a\": {\n  \"c\": null,\n  \"\\u0062\": {}\n },\n" +
+      " \"n\": -2.50e3,\n" +
+      " \"ñ\": true\n" +
+      "}";
+    String fcanon = "{\"a\":{\"b\":{},\"c\":null}," +
+      "\"b\":[1,{\"x\":\"] A\"},[],\"s\"],\"n\":-2500,\"ñ\":true}";
+    for (Js fjs : new Js[] {
+      new Js(ftx), new Js(ftx.getBytes(StandardCharsets.UTF_8)),
+      new Js("[" + ftx + "]").rArray().get(0)
+    }) {
+      assert fjs.minify().toString().equals(fmin);
+      assert fjs.pretty(1).toString().equals(fpretty);
+      assert fjs.pretty(0).toString()
+        .equals(fpretty.replaceAll("\n +", "\n"));
+      assert fjs.canonical().toString().equals(fcanon);
+      StringBuilder fsb = new StringBuilder("x");
+      fjs.canonical(fsb);
+      assert fsb.toString().equals("x" + fcanon);
+      java.io.StringWriter fw = new java.io.StringWriter();
+      fjs.pretty(fw, 1);
+      assert fw.toString().equals(fpretty);
+    }
+    assert new Js(" 12 ").minify().toString().equals("12");
+    assert new Js("[]").pretty(2).toString().equals("[]");
+    assert new Js("\"a\\/\\u00f1\\u001f\\t\"").canonical().toString()
+      .equals("\"a/ñ\\u001f\\t\"");
+    assert new Js("{\"b\":1,\"a\":2,\"b\":3}").canonical().toString()
+      .equals("{\"a\":2,\"b\":3}");
+    String[][] nums = {
+      {"0", "0"}, {"-0", "0"}, {"-0.0", "0"}, {"1.0", "1"}, {"1e2", "100"},
+      {"0.5", "0.5"}, {"5E-1", "0.5"}, {"1.50", "1.5"}, {"1e300", "1.0E300"},
+      {"9223372036854775807", "9223372036854775807"},
+      {"123456789012345678901234567890", "1.2345678901234568E29"}
+    };
+    for (String[] num : nums) {
+      assert new Js(num[0]).canonical().toString().equals(num[1]) : num[0];
+    }
+    HashMap<String, Js> fm = new HashMap<>();
+    for (int i = 0; i < 20; ++i) {
+      fm.put("k" + (19 - i), Js.write(i));
+    }
+    assert Js.write(fm).canonical().toString()
+      .startsWith("{\"k0\":19,\"k1\":18,\"k10\":9,");
+    StringBuilder fbig = new StringBuilder("[");
+    for (int i = 0; i < 5000; ++i) {
+      fbig.append(i == 0 ? "" : ", ").append("{\"id\": ").append(i)
+        .append(", \"s\": \"ñ\"}");
+    }
+    fbig.append("]");
+    Js fbjs = new Js(fbig.toString());
+    java.io.StringWriter fw = new java.io.StringWriter();
+    fbjs.minify(fw);
+    assert fw.toString().equals(fbig.toString().replace(" ", ""));
+    assert new Js(fw.toString()).rArray().size() == 5000;
+    for (String bad : new String[] {
+      "", "[1,]", "[1 2]", "{\"a\" 1}", "{a:1}", "[tru]", "1 2", "[1e400]",
+      "{\"a\": 1 2}", "{\"a\": true false}", "{\"a\": 1x, \"a\": 2}",
+      "{\"a\": [1 2], \"a\": 2}", "{\"a\": {\"b\" 1}, \"a\": 2}",
+      "{\"a\": \"x, \"a\": 2}"
+    }) {
+      try {
+        new Js(bad).canonical();
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+      if (!bad.equals("[1e400]")) {
+        try {
+          new Js(bad).minify();
+          assert false : bad;
+        } catch (IllegalArgumentException e) {
+        }
+      }
+    }
+
+    // Structural equality.
+    String[][] sames = {
+      {ftx, fmin, fpretty, fcanon},
+      {"{\"a\":1,\"b\":[2,{\"c\":3,\"d\":4}]}",
+       " { \"b\" : [ 2.0, {\"d\": 4, \"\\u0063\": 3e0} ] , \"a\": 1 } "},
+      {"\"ñ€𝄞\\n\"", "\"\\u00f1\\u20ac\\ud834\\udd1e\\u000a\""},
+      {"0", "-0", "0.0", "-0e5"},
+      {"1.5", "15e-1", "0.150e1"},
+      {"123456789012345678901234567890", "1.2345678901234568e29"},
+      {"[]", " [ ] "}, {"{}", "{ }"}, {"\"\"", " \"\" "}, {"null", " null"},
+      {"{\"a\":[1],\"b\":[1]}", "{\"b\":[1],\"a\":[1]}"},
+      // Repeated keys: only the last value counts.
+      {"{\"a\":2}", "{\"a\":1,\"a\":2}", "{\"a\":2,\"a\":1,\"a\":2}",
+       "{\"\\u0061\":{\"x\":1},\"a\":2}"},
+      {"{\"Aa\":1,\"BB\":2}", "{\"BB\":2,\"Aa\":0,\"Aa\":1}"},
+      // Texts which are not valid are compared as strings.
+      {"[1,]"}, {"{\"a\":1,\"a\"}"}, {"1e400"}
+    };
+    for (String[] group : sames) {
+      for (String s1 : group) {
+        for (String s2 : group) {
+          Js j1 = new Js(s1);
+          Js j2 = new Js(s2.getBytes(StandardCharsets.UTF_8));
+          assert j1.equals(j2) : s1 + " / " + s2;
+          assert j2.equals(j1) : s2 + " / " + s1;
+          assert j1.hashCode() == j2.hashCode() : s1 + " / " + s2;
+        }
+      }
+    }
+    String[] diffs = {
+      "0", "1", "-1", "1.5", "\"1\"", "true", "false", "null", "[]", "{}",
+      "[1]", "[1,2]", "[2,1]", "[[1]]", "{\"a\":1}", "{\"a\":2}",
+      "{\"b\":1}", "{\"a\":1,\"b\":1}", "{\"a\":[1]}", "\"a\"", "\"A\"",
+      "\"ab\"", "\"\\u00f1\"", "\"n\"", "9223372036854775807",
+      "9223372036854775808", "{\"Aa\":1,\"BB\":1}", "{\"Aa\":1}",
+      "[1,]", "[1 ,]", "[1", "", " ", "1 2", "[1,2,]", "1e400", "2e400",
+      "-1e400", "[1e400]", "[2e400]"
+    };
+    for (int i = 0; i < diffs.length; ++i) {
+      for (int j = 0; j < diffs.length; ++j) {
+        assert new Js(diffs[i]).equals(new Js(diffs[j])) == (i == j)
+          : diffs[i] + " / " + diffs[j];
+      }
+    }
+    assert !new Js("{\"a\":1,\"a\":2}").equals(new Js("{\"a\":2,\"a\":1}"));
+    for (String tx : new String[] {
+      ftx, "{\"a\":1,\"a\":2}", "{\"b\":{\"c\":[],\"c\":{}},\"a\":1,\"b\":0}"
+    }) {
+      Js js1 = new Js(tx);
+      assert js1.equals(js1.canonical()) && js1.canonical().equals(js1) : tx;
+      assert js1.hashCode() == js1.canonical().hashCode() : tx;
+    }
+    assert new Js("[1]").hashCode() == Arrays.asList(1).hashCode();
+    assert new Js("1e400").hashCode() == "1e400".hashCode();
+    // Deep nesting: up to 512 levels values are compared; beyond, texts.
+    for (int n : new int[] {512, 513, 100000}) {
+      String open = "[".repeat(n);
+      String close = "]".repeat(n);
+      Js hdeep = new Js(open + close);
+      Js hdeep2 = new Js(open + " " + close);
+      assert hdeep.equals(new Js(open + close));
+      assert hdeep.hashCode() == new Js(open + close).hashCode();
+      assert hdeep.equals(hdeep2) == (n <= 512) : n;
+      assert (hdeep.hashCode() == hdeep2.hashCode()) == (n <= 512) : n;
+      assert !new Js(open).equals(new Js(open + " "));
+      assert new Js(open).hashCode() == open.hashCode();
+      Js hdeepObj = new Js("{\"a\":".repeat(n) + "1" + "}".repeat(n));
+      assert hdeepObj.equals(hdeepObj) && !hdeepObj.equals(hdeep);
+      hdeepObj.hashCode();
+    }
+    assert new Js("\"ab\"").hashCode() == "ab".hashCode();
+    assert !new Js("1").equals("1");
+    Js ejs = new Js(ftx);
+    assert ejs.equals(ejs) && ejs.equals(new Js(ftx));
+    assert ejs.equals(new Js("[" + ftx + "]").rArray().get(0));
+    assert ejs.rObject().equals(new Js(fcanon).rObjectCompact());
+    java.util.HashSet<Js> eset = new java.util.HashSet<>();
+    for (String s : new String[] {ftx, fmin, fpretty, "[1]", " [ 1 ]"}) {
+      eset.add(new Js(s));
+    }
+    assert eset.size() == 2;
+    assert new Js("[1,]").hashCode() == "[1,]".hashCode();
+    assert new Js(new byte[0]).hashCode() == 0;
+    assert new Js("").equals(new Js(new byte[0]));
+
+    // Cached values.
+    String mtx = "{\"a\":[1,{\"x\":2}],\"b\":{\"c\":[3]},\"s\":\"t\"}";
+    Js mjs = new Js(mtx);
+    assert mjs.rObject().get("a") != mjs.rObject().get("a");
+    Js cjs = mjs.cached();
+    assert cjs.cached() == cjs;
+    HashMap<String, Js> m1 = cjs.rObject();
+    HashMap<String, Js> m2 = cjs.rObject();
+    assert m1 != m2 && m1.get("a") == m2.get("a");
+    m1.remove("a");
+    assert cjs.rObject().size() == 3;
+    assert cjs.rObjectCompact() == cjs.rObjectCompact();
+    assert cjs.rObject().get("s").rString().equals("t");
+    Js cb = cjs.select("b").get();
+    assert cb.rObject().get("c") == cb.rObject().get("c");
+    Js ca = cjs.indexed().select("a").get();
+    ArrayList<Js> a1 = ca.rArray();
+    a1.clear();
+    assert ca.rArray().get(1) == ca.rArray().get(1);
+    assert ca.rArray().get(1).rObject().get("x").rInteger() == 2;
+    try {
+      cjs.rArray();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+    assert new Js("[1, 2]").cached().rArray().size() == 2;
+
+    // Keys sharing.
+    String ktx = "[{\"ab\":1,\"ñ\":2},{\"\\u0061b\":3,\"ñ\":4},{\"ab\":5}]";
+    for (Js kjs : new Js[] {
+      new Js(ktx), new Js(ktx.getBytes(StandardCharsets.UTF_8))
+    }) {
+      List<String> keys = kjs.rArray().stream()
+        .flatMap(e -> e.rObject().keySet().stream())
+        .sorted().collect(Collectors.toList());
+      assert keys.equals(Arrays.asList("ab", "ab", "ab", "ñ", "ñ")) : keys;
+      assert keys.get(0) == keys.get(1) && keys.get(1) == keys.get(2);
+      assert keys.get(3) == keys.get(4);
+      keys = kjs.rArrayCompact().stream()
+        .flatMap(e -> e.rObjectCompact().keySet().stream())
+        .sorted().collect(Collectors.toList());
+      assert keys.get(0) == keys.get(2) && keys.get(3) == keys.get(4);
+    }
+    assert new Js("{\"a\":1}").rObject().keySet().iterator().next() !=
+      new Js("{\"a\":1}").rObject().keySet().iterator().next();
+    Js.globalKeys(true);
+    assert new Js("{\"a\":1}").rObject().keySet().iterator().next() ==
+      new Js("{\"a\":2}").rObject().keySet().iterator().next();
+    Js.globalKeys(false);
+    StringBuilder ksb = new StringBuilder("{");
+    String longKey = "k".repeat(100);
+    for (int i = 0; i < 6000; ++i) {
+      ksb.append("\"k").append(i).append("\":").append(i).append(',');
+    }
+    ksb.append("\"").append(longKey).append("\":-1}");
+    hjs = new Js(ksb.toString()).rObject();
+    assert hjs.size() == 6001;
+    assert hjs.get("k5999").rInteger() == 5999;
+    assert hjs.get(longKey).rInteger() == -1;
+
     assert Js.write("").rString().equals("");
     assert Js.write("abc").rString().equals("abc");
     assert Js.write("\\a\"b\"c\n\t").rString().equals("\\a\"b\"c\n\t");
     assert Js.write("c@ñón").rString().equals("c@ñón");
+    assert Js.write("a\u0001\rb\\").toString().equals("\"a \\rb\\\\\"");
+    String[] strs = {
+      "", "abc", "\"", "a\\", "\\a", "\n\"\n", "ñ€𝄞", "x\"ñ\"y", "a/b"
+    };
+    String strsTx = Js.write(strs).toString();
+    assert Arrays.equals(new Js(strsTx).rStringArray(), strs);
+    assert Arrays.equals(
+      new Js(strsTx.getBytes(StandardCharsets.UTF_8)).rStringArray(), strs
+    );
+    for (String str : strs) {
+      assert Js.write(str).rString().equals(str);
+      assert new Js(Js.write(str).toString().getBytes(StandardCharsets.UTF_8))
+        .rString().equals(str);
+    }
+    assert new Js("\"a\\/\\u00f1\"").rString().equals("a/ñ");
+    for (String bad : new String[] {"\"", "\"abc", "\"a\\\"", "\"a\\x\""}) {
+      try {
+        new Js(bad).rString();
+        assert false : bad;
+      } catch (IllegalArgumentException e) {
+      }
+    }
 
     js = Js.write(new ArrayList<>()).toString();
     ajs = new Js(js).rArray();
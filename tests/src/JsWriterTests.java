@@ -0,0 +1,79 @@
+import es.dm.Js;
+import es.dm.JsWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+public class JsWriterTests {
+  static boolean fails (Runnable fn) {
+    try {
+      fn.run();
+      return false;
+    } catch (IllegalStateException e) {
+      return true;
+    }
+  }
+
+  public static void run () {
+    System.out.println("JsWriter Tests");
+
+    StringBuilder sb = new StringBuilder();
+    new JsWriter(sb).value();
+    assert sb.toString().equals("null");
+
+    sb = new StringBuilder();
+    JsWriter wr = new JsWriter(sb);
+    wr.beginObject();
+    wr.name("a").beginArray().value(3).value(false).value(1.5).endArray();
+    wr.name("b").beginObject().name("q\"b").value("x\ny").endObject();
+    wr.name("c").beginArray().endArray();
+    wr.name("d").value(Js.write(new HashMap<>()));
+    wr.endObject();
+    assert sb.toString().equals(
+      "{\"a\":[3,false,1.5],\"b\":{\"q\\\"b\":\"x\\ny\"},\"c\":[],\"d\":{}}"
+    );
+    HashMap<String, Js> hjs = new Js(sb.toString()).rObject();
+    assert hjs.get("b").rObject().get("q\"b").rString().equals("x\ny");
+
+    StringWriter sw = new StringWriter();
+    wr = new JsWriter(sw);
+    wr.beginArray();
+    for (int i = 0; i < 5000; ++i) {
+      wr.value("ñ" + i);
+    }
+    wr.endArray();
+    wr.close();
+    assert new Js(sw.toString()).rArray().get(4999).rString().equals("ñ4999");
+
+    ByteArrayOutputStream bs = new ByteArrayOutputStream();
+    wr = new JsWriter(bs);
+    wr.beginArray().value("ñón").value(-2).endArray();
+    wr.close();
+    assert new String(bs.toByteArray(), StandardCharsets.UTF_8)
+      .equals("[\"ñón\",-2]");
+
+    assert fails(() -> new JsWriter(new StringBuilder()).beginObject().value(1));
+    assert fails(() -> new JsWriter(new StringBuilder()).beginArray().name("a"));
+    assert fails(() -> new JsWriter(new StringBuilder()).beginArray().endObject());
+    assert fails(() -> new JsWriter(new StringBuilder()).value(1).value(2));
+    assert fails(() -> new JsWriter(new StringBuilder()).beginArray().close());
+
+    boolean[] closed = {false};
+    StringWriter csw = new StringWriter() {
+      @Override
+      public void close () {
+        closed[0] = true;
+      }
+    };
+    assert fails(() -> new JsWriter(csw).beginArray().value(1).close());
+    assert closed[0] && csw.toString().equals("[1");
+    csw.getBuffer().setLength(0);
+    try (JsWriter cwr = new JsWriter(csw)) {
+      cwr.beginArray().value(2).endArray();
+    }
+    assert csw.toString().equals("[2]");
+
+    System.out.println("    Finished");
+  }
+}
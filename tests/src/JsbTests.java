@@ -0,0 +1,147 @@
+import es.dm.Js;
+import es.dm.Jsb;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JsbTests {
+  static boolean fails (byte[] bs) {
+    try {
+      new Jsb(bs);
+      return false;
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+  }
+
+  static Jsb copy (Jsb v) {
+    return new Jsb(v.toBytes());
+  }
+
+  public static void run () {
+    System.out.println("Jsb Tests");
+
+    assert copy(Jsb.write()).isNull();
+    assert copy(Jsb.write(true)).rBoolean();
+    assert !copy(Jsb.write(false)).rBoolean();
+    assert !Jsb.write(false).isNull();
+    for (long n : new long[] {
+      0, 1, -1, 63, -64, 64, 300, Integer.MAX_VALUE, Integer.MIN_VALUE,
+      Long.MAX_VALUE, Long.MIN_VALUE
+    }) {
+      assert copy(Jsb.write(n)).rLong() == n;
+      assert copy(Jsb.write(n)).rDouble() == (double)n;
+    }
+    assert Jsb.write(0).toBytes().length == 3;
+    assert copy(Jsb.write(-3)).rInteger() == -3;
+    assert copy(Jsb.write(1.5)).rDouble() == 1.5;
+    assert copy(Jsb.write(-0.0)).rDouble() == -0.0;
+    assert copy(Jsb.write("")).rString().equals("");
+    assert copy(Jsb.write("a\"ñ\n")).rString().equals("a\"ñ\n");
+
+    try {
+      Jsb.write(1.5).rLong();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+    try {
+      Jsb.write(3000000000L).rInteger();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+    try {
+      Jsb.write("a").rArray();
+      assert false;
+    } catch (IllegalArgumentException e) {
+    }
+
+    Jsb a = Jsb.write(new ArrayList<Jsb>());
+    assert copy(a).rArray().isEmpty();
+    assert a.toString().equals("[]");
+
+    Map<String, Jsb> m1 = new LinkedHashMap<>();
+    m1.put("id", Jsb.write(1));
+    m1.put("name", Jsb.write("x"));
+    Map<String, Jsb> m2 = new LinkedHashMap<>();
+    m2.put("name", Jsb.write("y"));
+    m2.put("tags", Jsb.write(Arrays.asList(Jsb.write("t"), Jsb.write(2.5))));
+    m2.put("id", Jsb.write(2));
+    Map<String, Jsb> m3 = new LinkedHashMap<>();
+    m3.put("inner", Jsb.write(m2));
+    m3.put("zzz", Jsb.write());
+
+    List<Jsb> l = new ArrayList<>();
+    l.add(Jsb.write(m1));
+    l.add(Jsb.write(m2));
+    l.add(Jsb.write(m3));
+    Jsb doc = copy(Jsb.write(l));
+    assert doc.toString().equals(
+      "[{\"id\":1,\"name\":\"x\"}," +
+      "{\"name\":\"y\",\"tags\":[\"t\",2.5],\"id\":2}," +
+      "{\"inner\":{\"name\":\"y\",\"tags\":[\"t\",2.5],\"id\":2}," +
+      "\"zzz\":null}]"
+    );
+    ArrayList<Jsb> ds = doc.rArray();
+    assert ds.size() == 3;
+    HashMap<String, Jsb> o = ds.get(1).rObject();
+    assert o.get("id").rInteger() == 2;
+    assert o.get("name").rString().equals("y");
+    assert o.get("tags").rArray().get(1).rDouble() == 2.5;
+    o = ds.get(2).rObject().get("inner").rObject();
+    assert o.get("tags").rArray().get(0).rString().equals("t");
+    assert copy(ds.get(2)).rObject().get("zzz").isNull();
+    assert copy(o.get("tags")).toString().equals("[\"t\",2.5]");
+
+    String tx = "{\"users\":[{\"id\":\"a\",\"level\":\"0\",\"exp\":1e300}," +
+      "{\"id\":\"b\",\"level\":\"1\",\"exp\":-12}],\"n\":null," +
+      "\"ok\":true,\"q\":\"\\u00f1\"}";
+    Jsb b = copy(Jsb.of(new Js(tx)));
+    assert b.rObject().get("users").rArray().get(0).rObject()
+      .get("exp").rDouble() == 1e300;
+    assert b.rObject().get("users").rArray().get(1).rObject()
+      .get("exp").rLong() == -12;
+    assert b.rObject().get("q").rString().equals("ñ");
+    assert b.toJs().rObject().get("ok").rBoolean();
+    assert Jsb.of(new Js(b.toString())).toString().equals(b.toString());
+    assert b.toBytes().length < tx.length();
+
+    b = copy(Jsb.of(new Js(" {\"b\":[[],{}],\"a\":1,\"b\":[2]} ")));
+    assert b.toString().equals("{\"b\":[[],{}],\"a\":1,\"b\":[2]}");
+    assert b.rObject().get("b").rArray().get(0).rLong() == 2;
+    StringBuilder deep = new StringBuilder();
+    for (int i = 0; i < 200; ++i) {
+      deep.append("[{\"k").append(i % 3).append("\":");
+    }
+    deep.append("\"").append("x".repeat(300)).append("\"");
+    for (int i = 0; i < 200; ++i) {
+      deep.append("},").append(i).append(']');
+    }
+    b = copy(Jsb.of(new Js(deep.toString())));
+    assert b.toString().equals(deep.toString());
+    for (String bad : new String[] {
+      "", "[1,]", "{\"a\":}", "{\"a\" 1}", "{1:2}", "[1] 2", "nul", "[tru]"
+    }) {
+      try {
+        Jsb.of(new Js(bad));
+        assert false;
+      } catch (IllegalArgumentException e) {
+      }
+    }
+
+    assert fails(new byte[] {});
+    assert fails(new byte[] {0});
+    assert fails(new byte[] {0, 9});
+    assert fails(new byte[] {0, 0, 0});
+    assert fails(new byte[] {0, 5, 3, 'a'});
+    assert fails(new byte[] {0, 6, 1, 1});
+    assert fails(new byte[] {0, 6, 1, 2, 0, 0});
+    assert fails(new byte[] {0, 7, 1, 2, 0, 0});
+    assert fails(new byte[] {0, 4, 1, 2});
+    assert !fails(new byte[] {0, 6, 2, 2, 0, 2});
+
+    System.out.println("    Finished");
+  }
+}
@@ -11,6 +11,11 @@ public class Main {
       DateTests.run();
       FileTests.run();
       JsTests.run();
+      JsReaderTests.run();
+      JsWriterTests.run();
+      JsCodecTests.run();
+      JsLinesTests.run();
+      JsbTests.run();
       RboxTests.run();
       CrypTests.run();
     }
@@ -0,0 +1,49 @@
+// Copyright 18-Oct-2026 ºDeme
+// GNU General Public License - V3 <http://www.gnu.org/licenses/>
+
+package es.dm;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Maker of JsIndex masks with the Vector API.
+// It is compiled apart ('make' does it if JDM_VECTOR=1 and the JDK has the
+// module jdk.incubator.vector) and used only if that module is loaded
+// ('--add-modules jdk.incubator.vector'). Otherwise JsIndex makes the
+// masks byte by byte.
+final class JsIndexVector {
+  static final VectorSpecies<Byte> SPECIES =
+    ByteVector.SPECIES_PREFERRED.length() >= 64
+      ? ByteVector.SPECIES_512
+      : ByteVector.SPECIES_PREFERRED
+  ;
+  static final int LANES = SPECIES.length();
+
+  // Makes the masks of bytes [from, to) of 'bs' for 'idx'.
+  static void masks (JsIndex idx, ByteBuffer bs, int from, int to) {
+    ByteOrder order = ByteOrder.nativeOrder();
+    byte[] a = bs.hasArray() ? bs.array() : null;
+    int shift = a == null ? 0 : bs.arrayOffset();
+    int i = from;
+    for (; i + 64 <= to; i += 64) {
+      long quote = 0;
+      long backslash = 0;
+      long bracket = 0;
+      for (int j = 0; j < 64; j += LANES) {
+        ByteVector v = a == null
+          ? ByteVector.fromByteBuffer(SPECIES, bs, i + j, order)
+          : ByteVector.fromArray(SPECIES, a, shift + i + j)
+        ;
+        // '[' and ']' are '{' and '}' without bit 0x20.
+        ByteVector lower = v.or((byte)0x20);
+        quote |= v.eq((byte)'"').toLong() << j;
+        backslash |= v.eq((byte)'\\').toLong() << j;
+        bracket |= lower.eq((byte)'{').or(lower.eq((byte)'}')).toLong() << j;
+      }
+      idx.block(quote, backslash, bracket, i);
+    }
+    idx.masks(bs, i, to);
+  }
+}